@@ -1,6 +1,7 @@
 plugins {
     `java-library`
     `maven-publish`
+    id("me.champeau.jmh") version "0.7.3"
 }
 
 group = "com.github.my10fingers"
@@ -38,6 +39,22 @@ tasks.test {
     useJUnitPlatform()
 }
 
+// ./gradlew jmh -Pjmh.includes=RegexExtractorBenchmark
+jmh {
+    jmhVersion.set("1.37")
+    profilers.add("gc")
+    resultFormat.set("JSON")
+    (project.findProperty("jmh.includes") as String?)?.let { includes.add(it) }
+}
+
+// ./gradlew bulkIndex --args="--dir docs --out keywords.jsonl --threads 8"
+tasks.register<JavaExec>("bulkIndex") {
+    group = "application"
+    description = "Extracts keywords from a directory tree or a JSONL file into JSONL."
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass.set("com.rothem.tree.textfeature.BulkIndexer")
+}
+
 tasks.withType<JavaCompile> {
     options.encoding = "UTF-8"
 }
@@ -0,0 +1,79 @@
+package com.rothem.tree.textfeature;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Benchmark inputs bundled under {@code src/jmh/resources/corpus}.
+ */
+final class Corpora {
+    static final String FILENAMES = "filenames";
+    static final String MIXED = "mixed";
+    static final String FINANCIAL = "financial";
+    static final String LONG = "long";
+
+    private static final int LONG_DOCUMENT_CHARS = 64 * 1024;
+
+    private Corpora() {
+    }
+
+    static String[] load(String corpus) {
+        return switch (corpus) {
+            case FILENAMES, MIXED, FINANCIAL -> lines(corpus).toArray(String[]::new);
+            case LONG -> new String[]{longDocument()};
+            default -> throw new IllegalArgumentException("Unknown corpus: " + corpus);
+        };
+    }
+
+    /** Deterministic user dictionary of {@code size} entries: real domain terms first, then synthetic nouns. */
+    static List<String> userDictionary(int size) {
+        List<String> words = new ArrayList<>(size);
+        for (String term : List.of("법무RM팀", "하이퍼그로스플랜", "불복조서", "경영실적", "스마트시티")) {
+            if (words.size() < size) words.add(term);
+        }
+        Random random = new Random(42);
+        StringBuilder sb = new StringBuilder();
+        while (words.size() < size) {
+            sb.setLength(0);
+            int syllables = 2 + random.nextInt(5);
+            for (int i = 0; i < syllables; i++) {
+                sb.append((char) ('가' + random.nextInt('힣' - '가' + 1)));
+            }
+            if (random.nextInt(8) == 0) {
+                sb.append((char) ('A' + random.nextInt(26))).append((char) ('A' + random.nextInt(26)));
+            }
+            words.add(sb.toString());
+        }
+        return words;
+    }
+
+    private static String longDocument() {
+        String document = String.join("\n", lines("document"));
+        List<String> filler = new ArrayList<>(lines(MIXED));
+        filler.addAll(lines(FINANCIAL));
+
+        StringBuilder sb = new StringBuilder(LONG_DOCUMENT_CHARS + document.length());
+        for (int i = 0; sb.length() < LONG_DOCUMENT_CHARS; i++) {
+            sb.append(document).append('\n').append(filler.get(i % filler.size())).append('\n');
+        }
+        return sb.toString();
+    }
+
+    private static List<String> lines(String name) {
+        try (InputStream in = Corpora.class.getResourceAsStream("/corpus/" + name + ".txt")) {
+            if (in == null) throw new IllegalStateException("Missing corpus: " + name);
+            List<String> lines = new ArrayList<>();
+            for (String line : new String(in.readAllBytes(), StandardCharsets.UTF_8).split("\n")) {
+                if (!line.isBlank()) lines.add(line.strip());
+            }
+            return lines;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.rothem.tree.textfeature;
+
+import com.rothem.tree.textfeature.data.CompactKeywordResult;
+import com.rothem.tree.textfeature.data.KeywordExtractionResult;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end extraction (regex scan, KOMORAN, post-processing) per corpus and user dictionary size.
+ * Run with {@code ./gradlew jmh}; the gc profiler adds allocation rate per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExtractionBenchmark {
+
+    @Param({Corpora.FILENAMES, Corpora.MIXED, Corpora.FINANCIAL, Corpora.LONG})
+    public String corpus;
+
+    @Param({"0", "1000", "100000"})
+    public int userDictionarySize;
+
+    private TextFeatureExtractor extractor;
+    private String[] inputs;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        extractor = TextFeatureExtractor.builder().build();
+        if (userDictionarySize > 0) {
+            extractor.addUserDictionary(Corpora.userDictionary(userDictionarySize));
+        }
+        inputs = Corpora.load(corpus);
+    }
+
+    @Benchmark
+    public KeywordExtractionResult extractKeywords(InputCursor cursor) {
+        return extractor.extractKeywords(cursor.next(inputs));
+    }
+
+    @Benchmark
+    public List<String> extractUniqueKeywords(InputCursor cursor) {
+        return extractor.extractUniqueKeywords(cursor.next(inputs));
+    }
+
+    @Benchmark
+    public CompactKeywordResult extractKeywordsCompact(InputCursor cursor) {
+        return extractor.extractKeywordsCompact(cursor.next(inputs));
+    }
+
+    @Benchmark
+    public void extractKeywordsToSink(InputCursor cursor, Blackhole blackhole) {
+        extractor.extractKeywords(cursor.next(inputs), new KeywordSink() {
+            @Override
+            public void noun(String noun, long start, long end) {
+                blackhole.consume(noun);
+            }
+
+            @Override
+            public void regexMatch(RegexExtractorKey key, String value, long start, long end) {
+                blackhole.consume(value);
+            }
+        });
+    }
+}
@@ -0,0 +1,33 @@
+package com.rothem.tree.textfeature;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Filename tokenizer alone; it never touches KOMORAN.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FilenameTokenizerBenchmark {
+
+    @Param({Corpora.FILENAMES, Corpora.MIXED})
+    public String corpus;
+
+    private String[] inputs;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        inputs = Corpora.load(corpus);
+    }
+
+    @Benchmark
+    public List<String> splitFilenameToTokens(InputCursor cursor) {
+        return KeywordExtractor.splitFilenameToTokens(cursor.next(inputs));
+    }
+}
@@ -0,0 +1,17 @@
+package com.rothem.tree.textfeature;
+
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Per-thread round-robin position over a corpus, so every invocation sees the next input.
+ */
+@State(Scope.Thread)
+public class InputCursor {
+    private int index;
+
+    String next(String[] inputs) {
+        if (index >= inputs.length) index = 0;
+        return inputs[index++];
+    }
+}
@@ -0,0 +1,34 @@
+package com.rothem.tree.textfeature;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Regex stage alone; it never touches KOMORAN.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RegexExtractorBenchmark {
+
+    @Param({Corpora.FILENAMES, Corpora.MIXED, Corpora.FINANCIAL, Corpora.LONG})
+    public String corpus;
+
+    private String[] inputs;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        inputs = Corpora.load(corpus);
+    }
+
+    @Benchmark
+    public Map<String, List<String>> extractRegexMatches(InputCursor cursor) {
+        return RegexExtractor.extractRegexMatches(cursor.next(inputs));
+    }
+}
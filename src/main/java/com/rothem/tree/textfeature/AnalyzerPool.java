@@ -0,0 +1,190 @@
+package com.rothem.tree.textfeature;
+
+import kr.co.shineware.nlp.komoran.constant.DEFAULT_MODEL;
+import kr.co.shineware.nlp.komoran.core.Komoran;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded pool of KOMORAN instances. Each analyzer is used by one thread at a time,
+ * so user dictionary reloads never run underneath an in-flight {@code analyze} call.
+ * Analyzers are created on demand, up to {@code maxSize}.
+ *
+ * <p>Loading a user dictionary reparses its whole file, so borrowers name the snapshot they want and get an
+ * idle analyzer that already holds it when there is one. Failing that they get one holding a superseded
+ * snapshot or none, then a new analyzer while the pool may grow, and only then the least recently used idle one.
+ * Dictionary overlays, e.g. one per tenant, thereby keep their analyzers instead of reloading on every call.
+ */
+final class AnalyzerPool {
+    private final DEFAULT_MODEL model;
+    private final int maxSize;
+    // most recently released first
+    private final LinkedBlockingDeque<PooledAnalyzer> idle = new LinkedBlockingDeque<>();
+    private final AtomicInteger created = new AtomicInteger();
+    private final LongAdder dictionaryLoads = new LongAdder();
+
+    AnalyzerPool(DEFAULT_MODEL model, int maxSize) {
+        if (maxSize < 1) throw new IllegalArgumentException("poolSize must be positive: " + maxSize);
+        this.model = model;
+        this.maxSize = maxSize;
+    }
+
+    /** Borrows an analyzer, preferring one that has {@code wanted} applied already. */
+    PooledAnalyzer borrow(UserDictionarySnapshot wanted) {
+        PooledAnalyzer analyzer = pollIdle(wanted);
+        if (analyzer != null) return analyzer;
+
+        while (true) {
+            int count = created.get();
+            if (count >= maxSize) {
+                analyzer = idle.pollLast();
+                if (analyzer != null) return analyzer;
+                try {
+                    return idle.takeFirst();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for an analyzer", e);
+                }
+            }
+            if (created.compareAndSet(count, count + 1)) {
+                try {
+                    return new PooledAnalyzer(new Komoran(model), dictionaryLoads);
+                } catch (RuntimeException | Error e) {
+                    created.decrementAndGet();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /** An idle analyzer holding {@code wanted}, else one holding a superseded or no snapshot, else {@code null}. */
+    private PooledAnalyzer pollIdle(UserDictionarySnapshot wanted) {
+        PooledAnalyzer superseded = null;
+        for (PooledAnalyzer analyzer : idle) {
+            if (analyzer.applied() == wanted) {
+                // another borrower may have taken it since the iterator saw it
+                if (idle.removeFirstOccurrence(analyzer)) return analyzer;
+            } else if (superseded == null && (analyzer.applied().isReleased()
+                    || analyzer.applied() == UserDictionarySnapshot.EMPTY)) {
+                superseded = analyzer;
+            }
+        }
+        return superseded != null && idle.removeFirstOccurrence(superseded) ? superseded : null;
+    }
+
+    void release(PooledAnalyzer analyzer) {
+        idle.offerFirst(analyzer);
+        // an overlay reloaded or evicted while this analyzer used it is not wanted again; checked after the offer
+        // so that either this or the unload() sweep that follows the release sees the analyzer
+        UserDictionarySnapshot applied = analyzer.applied();
+        if (applied.isOverlay() && applied.isReleased() && idle.removeFirstOccurrence(analyzer)) {
+            analyzer.unload();
+            idle.offerLast(analyzer);
+        }
+    }
+
+    /** Drops {@code snapshot}, a released overlay, from the idle analyzers holding it so it can be collected. */
+    void unload(UserDictionarySnapshot snapshot) {
+        for (PooledAnalyzer analyzer : idle) {
+            if (analyzer.applied() == snapshot && idle.removeFirstOccurrence(analyzer)) {
+                analyzer.unload();
+                idle.offerLast(analyzer);
+            }
+        }
+    }
+
+    int size() {
+        return created.get();
+    }
+
+    /** User dictionary files loaded into analyzers so far; each is a full reparse inside KOMORAN. */
+    long dictionaryLoads() {
+        return dictionaryLoads.sum();
+    }
+
+    int maxSize() {
+        return maxSize;
+    }
+
+    /** Dictionary file without entries, loaded to drop an overlay when no user dictionary should remain. */
+    private static final class EmptyDictionary {
+        private static final Path FILE = create();
+
+        private static Path create() {
+            try {
+                Path file = Files.createTempFile("keyword-extractor-userdic", ".txt");
+                file.toFile().deleteOnExit();
+                return file;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    static final class PooledAnalyzer {
+        private final Komoran komoran;
+        private final LongAdder dictionaryLoads;
+        // read by borrowers looking for a matching idle analyzer
+        private volatile UserDictionarySnapshot applied = UserDictionarySnapshot.EMPTY;
+
+        private PooledAnalyzer(Komoran komoran, LongAdder dictionaryLoads) {
+            this.komoran = komoran;
+            this.dictionaryLoads = dictionaryLoads;
+        }
+
+        Komoran komoran() {
+            return komoran;
+        }
+
+        /**
+         * The snapshot currently loaded. Compared by identity: the extractor's own versions and those of
+         * dictionary overlays are counted separately.
+         */
+        UserDictionarySnapshot applied() {
+            return applied;
+        }
+
+        /** Loads the snapshot's user dictionary if this analyzer has not applied it yet. */
+        void apply(UserDictionarySnapshot snapshot) {
+            if (applied == snapshot) return;
+            Path file = snapshot.file() != null || applied.file() == null ? snapshot.file() : EmptyDictionary.FILE;
+            if (file != null) {
+                DictionaryReloadEvent event = new DictionaryReloadEvent();
+                event.begin();
+                load(file);
+                event.end();
+                if (event.shouldCommit()) {
+                    event.phase = DictionaryReloadEvent.LOAD;
+                    event.source = "";
+                    event.version = snapshot.version();
+                    event.entryCount = snapshot.entries().size();
+                    event.commit();
+                }
+            }
+            switchTo(snapshot);
+        }
+
+        /** Replaces the loaded user dictionary with an empty one; the next borrower loads what it needs. */
+        private void unload() {
+            if (applied.file() != null) load(EmptyDictionary.FILE);
+            switchTo(UserDictionarySnapshot.EMPTY);
+        }
+
+        private void load(Path file) {
+            komoran.setUserDic(file.toString());
+            dictionaryLoads.increment();
+        }
+
+        private void switchTo(UserDictionarySnapshot snapshot) {
+            applied.analyzerUnloaded();
+            snapshot.analyzerLoaded();
+            applied = snapshot;
+        }
+    }
+}
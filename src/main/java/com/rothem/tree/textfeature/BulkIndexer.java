@@ -0,0 +1,410 @@
+package com.rothem.tree.textfeature;
+
+import com.rothem.tree.textfeature.data.KeywordExtractionResult;
+import kr.co.shineware.nlp.komoran.constant.DEFAULT_MODEL;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Offline bulk indexing: extracts keywords from every file under a directory, or from every record of a
+ * JSONL file, with N worker threads, and writes one JSON line per input. Prints throughput and per-stage
+ * timings to stderr when done.
+ *
+ * <p>Directory mode writes {@code {"path", "filenameTokens", "nouns", "regex"}} per file; the contents of
+ * files with a text extension are streamed through memory-mapped windows, other files contribute their
+ * name only. JSONL mode reads the input through memory-mapped windows as well and writes
+ * {@code {"id", "nouns", "regex"}} per record. Inputs that fail get an {@code "error"} field instead.
+ * With {@code --max-chars} or {@code --budget-ms}, inputs that exceeded the budget get {@code "degraded":true},
+ * so they can be picked out and re-indexed without the budget.
+ *
+ * <p>Run with {@code ./gradlew bulkIndex --args="--dir docs --out keywords.jsonl --threads 8"}.
+ */
+public final class BulkIndexer {
+    private static final String USAGE = """
+            usage: BulkIndexer (--dir <root> | --jsonl <file>) [--out <file>] [--threads <n>]
+                               [--model FULL|LIGHT] [--dictionary <file>] [--ext txt,md,csv,log]
+                               [--id-field id] [--text-field text] [--max-chars <n>] [--budget-ms <n>]""";
+    private static final int QUEUE_PER_WORKER = 64;
+    private static final int OUTPUT_BUFFER_CHARS = 1 << 20;
+    private static final Task END = new Task(null, null, 0);
+
+    private final Options options;
+    private final TextFeatureExtractor extractor;
+    private final StageTimings timings = new StageTimings();
+    private final LongAdder records = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder degraded = new LongAdder();
+    private final LongAdder filenameNanos = new LongAdder();
+    private final LongAdder writeNanos = new LongAdder();
+    private final AtomicReference<IOException> writeError = new AtomicReference<>();
+
+    private BulkIndexer(Options options) {
+        this.options = options;
+        this.extractor = TextFeatureExtractor.builder()
+                .model(options.model)
+                .poolSize(options.threads)
+                .metrics(timings)
+                .maxAnalyzedChars(options.maxChars)
+                .analyzeBudget(Duration.ofMillis(options.budgetMillis))
+                .build();
+        if (options.dictionary != null) extractor.setUserDictionaryPath(options.dictionary.toString());
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        System.exit(run(args, System.out, System.err));
+    }
+
+    /** Runs the tool; returns the process exit code. Output goes to {@code stdout} unless {@code --out} is given. */
+    static int run(String[] args, OutputStream stdout, PrintStream stderr) throws IOException, InterruptedException {
+        Options options;
+        try {
+            options = Options.parse(args);
+        } catch (IllegalArgumentException e) {
+            stderr.println(e.getMessage());
+            stderr.println(USAGE);
+            return 2;
+        }
+
+        OutputStream sink = options.out != null ? Files.newOutputStream(options.out) : stdout;
+        Writer out = new BufferedWriter(new OutputStreamWriter(sink, StandardCharsets.UTF_8), OUTPUT_BUFFER_CHARS);
+        BulkIndexer indexer = new BulkIndexer(options);
+        long start = System.nanoTime();
+        try {
+            indexer.index(out);
+        } finally {
+            if (options.out != null) {
+                out.close();
+            } else {
+                out.flush();
+            }
+        }
+        indexer.printSummary(stderr, System.nanoTime() - start);
+        return indexer.failures.sum() == 0 ? 0 : 1;
+    }
+
+    private void index(Writer out) throws IOException, InterruptedException {
+        BlockingQueue<Task> queue = new ArrayBlockingQueue<>(options.threads * QUEUE_PER_WORKER);
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < options.threads; i++) {
+            Thread worker = new Thread(() -> work(queue, out), "bulk-indexer-" + i);
+            worker.start();
+            workers.add(worker);
+        }
+        try {
+            if (options.dir != null) {
+                walk(queue);
+            } else {
+                readJsonl(queue);
+            }
+        } finally {
+            stop(queue, workers);
+        }
+        IOException error = writeError.get();
+        if (error != null) throw error;
+    }
+
+    /**
+     * Lets the workers finish the queued tasks and exit. After a write failure the workers that saw it have
+     * exited and nobody drains the queue, so the rest are interrupted instead of being sent {@code END}.
+     */
+    private void stop(BlockingQueue<Task> queue, List<Thread> workers) throws InterruptedException {
+        int sent = 0;
+        while (sent < workers.size()) {
+            if (writeError.get() != null) {
+                for (Thread worker : workers) {
+                    worker.interrupt();
+                }
+                break;
+            }
+            if (queue.offer(END, 100, TimeUnit.MILLISECONDS)) sent++;
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+    }
+
+    private void walk(BlockingQueue<Task> queue) throws IOException, InterruptedException {
+        try (Stream<Path> paths = Files.walk(options.dir)) {
+            Iterator<Path> it = paths.iterator();
+            while (it.hasNext()) {
+                Path file = it.next();
+                if (Files.isRegularFile(file)) enqueue(queue, new Task(file, null, 0));
+            }
+        }
+    }
+
+    private void readJsonl(BlockingQueue<Task> queue) throws IOException, InterruptedException {
+        try (BufferedReader reader = new BufferedReader(new MappedFileReader(options.jsonl, StandardCharsets.UTF_8))) {
+            String line;
+            long lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (!line.isBlank()) enqueue(queue, new Task(null, line, lineNumber));
+            }
+        }
+    }
+
+    private void enqueue(BlockingQueue<Task> queue, Task task) throws IOException, InterruptedException {
+        // a failed writer stops the workers; don't wait for them forever
+        while (!queue.offer(task, 100, TimeUnit.MILLISECONDS)) {
+            IOException error = writeError.get();
+            if (error != null) throw error;
+        }
+    }
+
+    private void work(BlockingQueue<Task> queue, Writer out) {
+        StringBuilder line = new StringBuilder(1024);
+        try {
+            while (true) {
+                Task task = queue.take();
+                if (task == END) return;
+
+                line.setLength(0);
+                try {
+                    if (task.file != null) {
+                        indexFile(task.file, line);
+                    } else {
+                        indexRecord(task.line, line);
+                    }
+                } catch (Exception | StackOverflowError e) {
+                    failures.increment();
+                    line.setLength(0);
+                    line.append('{');
+                    if (task.file != null) {
+                        line.append("\"path\":");
+                        Jsonl.appendString(line, relativePath(task.file));
+                    } else {
+                        line.append("\"line\":").append(task.lineNumber);
+                    }
+                    line.append(",\"error\":");
+                    Jsonl.appendString(line, String.valueOf(e));
+                    line.append('}');
+                }
+                records.increment();
+
+                long start = System.nanoTime();
+                synchronized (out) {
+                    out.append(line).append('\n');
+                }
+                writeNanos.add(System.nanoTime() - start);
+            }
+        } catch (IOException e) {
+            writeError.compareAndSet(null, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void indexFile(Path file, StringBuilder line) throws IOException {
+        long start = System.nanoTime();
+        List<String> filenameTokens = TextFeatureExtractor.splitFilenameToTokens(file.getFileName().toString());
+        filenameNanos.add(System.nanoTime() - start);
+
+        line.append("{\"path\":");
+        Jsonl.appendString(line, relativePath(file));
+        line.append(",\"filenameTokens\":");
+        Jsonl.appendStrings(line, filenameTokens);
+        if (isText(file)) {
+            CollectingSink sink = new CollectingSink();
+            extractor.extractKeywords(file, StandardCharsets.UTF_8, sink);
+            line.append(",\"nouns\":");
+            Jsonl.appendStrings(line, sink.nouns);
+            line.append(",\"regex\":");
+            Jsonl.appendStringLists(line, sink.regex);
+            appendDegraded(line, sink.degraded);
+        }
+        line.append('}');
+    }
+
+    private void indexRecord(String record, StringBuilder line) {
+        String id = Jsonl.field(record, options.idField);
+        String text = Jsonl.field(record, options.textField);
+        KeywordExtractionResult result = extractor.extractKeywords(text);
+
+        line.append("{\"id\":");
+        if (id != null) {
+            Jsonl.appendString(line, id);
+        } else {
+            line.append("null");
+        }
+        line.append(",\"nouns\":");
+        Jsonl.appendStrings(line, result.getNouns());
+        line.append(",\"regex\":");
+        Jsonl.appendStringLists(line, result.getRegex());
+        appendDegraded(line, result.isDegraded());
+        line.append('}');
+    }
+
+    private void appendDegraded(StringBuilder line, boolean isDegraded) {
+        if (!isDegraded) return;
+        degraded.increment();
+        line.append(",\"degraded\":true");
+    }
+
+    private boolean isText(Path file) {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot >= 0 && options.extensions.contains(name.substring(dot + 1).toLowerCase(Locale.ROOT));
+    }
+
+    private String relativePath(Path file) {
+        return options.dir.relativize(file).toString().replace('\\', '/');
+    }
+
+    private void printSummary(PrintStream err, long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        long count = records.sum();
+        long chars = timings.chars.sum();
+        err.printf(Locale.ROOT, "indexed %d inputs (%d failed) in %.2f s with %d threads: %.1f inputs/s, %.2f M chars/s%n",
+                count, failures.sum(), seconds, options.threads, count / seconds, chars / seconds / 1e6);
+        if (degraded.sum() > 0) {
+            err.printf(Locale.ROOT, "%d inputs exceeded the size or time budget and were marked degraded%n", degraded.sum());
+        }
+
+        Map<String, long[]> rows = new LinkedHashMap<>();
+        for (ExtractionStage stage : ExtractionStage.values()) {
+            rows.put(stage.name().toLowerCase(Locale.ROOT), new long[]{timings.nanos.get(stage).sum(), timings.calls.get(stage).sum()});
+        }
+        rows.put("filename_split", new long[]{filenameNanos.sum(), options.dir != null ? count : 0});
+        rows.put("write", new long[]{writeNanos.sum(), count});
+        long total = 0;
+        for (long[] row : rows.values()) {
+            total += row[0];
+        }
+
+        // stage times are summed over all workers, so they add up to more than the wall time
+        err.printf(Locale.ROOT, "%-16s %12s %10s %7s%n", "stage", "total ms", "mean us", "share");
+        for (Map.Entry<String, long[]> row : rows.entrySet()) {
+            long nanos = row.getValue()[0];
+            long calls = row.getValue()[1];
+            if (calls == 0) continue;
+            err.printf(Locale.ROOT, "%-16s %12.1f %10.1f %6.1f%%%n", row.getKey(), nanos / 1e6,
+                    nanos / 1e3 / calls, total == 0 ? 0.0 : 100.0 * nanos / total);
+        }
+    }
+
+    private record Task(Path file, String line, long lineNumber) {
+    }
+
+    /** De-duplicates nouns across the chunks of one streamed file. */
+    private static final class CollectingSink implements KeywordSink {
+        private final Set<String> nouns = new LinkedHashSet<>();
+        private final Map<String, List<String>> regex = new LinkedHashMap<>();
+        private boolean degraded;
+
+        CollectingSink() {
+            for (RegexExtractorKey key : RegexExtractorKey.values()) {
+                regex.put(key.keyName(), new ArrayList<>());
+            }
+        }
+
+        @Override
+        public void noun(String noun, long start, long end) {
+            nouns.add(noun);
+        }
+
+        @Override
+        public void regexMatch(RegexExtractorKey key, String value, long start, long end) {
+            regex.get(key.keyName()).add(value);
+        }
+
+        @Override
+        public void degraded(long start, long end) {
+            degraded = true;
+        }
+    }
+
+    /** Sums stage timings and input sizes over all workers. */
+    private static final class StageTimings implements ExtractionMetrics {
+        private final Map<ExtractionStage, LongAdder> nanos = new EnumMap<>(ExtractionStage.class);
+        private final Map<ExtractionStage, LongAdder> calls = new EnumMap<>(ExtractionStage.class);
+        private final LongAdder chars = new LongAdder();
+
+        StageTimings() {
+            for (ExtractionStage stage : ExtractionStage.values()) {
+                nanos.put(stage, new LongAdder());
+                calls.put(stage, new LongAdder());
+            }
+        }
+
+        @Override
+        public void recordStage(ExtractionStage stage, long stageNanos) {
+            nanos.get(stage).add(stageNanos);
+            calls.get(stage).increment();
+        }
+
+        @Override
+        public void recordExtraction(int inputLength, int tokenCount, int nounCount, int regexMatchCount, long totalNanos) {
+            chars.add(inputLength);
+        }
+    }
+
+    private static final class Options {
+        private Path dir;
+        private Path jsonl;
+        private Path out;
+        private int threads = Runtime.getRuntime().availableProcessors();
+        private DEFAULT_MODEL model = DEFAULT_MODEL.FULL;
+        private Path dictionary;
+        private Set<String> extensions = Set.of("txt", "md", "csv", "log");
+        private String idField = "id";
+        private String textField = "text";
+        private int maxChars = Integer.MAX_VALUE;
+        private long budgetMillis;
+
+        static Options parse(String[] args) {
+            Options options = new Options();
+            for (int i = 0; i < args.length; i++) {
+                String flag = args[i];
+                if (i + 1 >= args.length) throw new IllegalArgumentException("missing value for " + flag);
+                String value = args[++i];
+                switch (flag) {
+                    case "--dir" -> options.dir = Path.of(value);
+                    case "--jsonl" -> options.jsonl = Path.of(value);
+                    case "--out" -> options.out = Path.of(value);
+                    case "--threads" -> options.threads = Integer.parseInt(value);
+                    case "--model" -> options.model = DEFAULT_MODEL.valueOf(value.toUpperCase(Locale.ROOT));
+                    case "--dictionary" -> options.dictionary = Path.of(value);
+                    case "--ext" -> options.extensions = Set.of(value.toLowerCase(Locale.ROOT).split(","));
+                    case "--id-field" -> options.idField = value;
+                    case "--text-field" -> options.textField = value;
+                    case "--max-chars" -> options.maxChars = Integer.parseInt(value);
+                    case "--budget-ms" -> options.budgetMillis = Long.parseLong(value);
+                    default -> throw new IllegalArgumentException("unknown option: " + flag);
+                }
+            }
+            if ((options.dir == null) == (options.jsonl == null)) {
+                throw new IllegalArgumentException("exactly one of --dir and --jsonl is required");
+            }
+            if (options.threads < 1) throw new IllegalArgumentException("--threads must be positive: " + options.threads);
+            if (options.maxChars < 1) throw new IllegalArgumentException("--max-chars must be positive: " + options.maxChars);
+            if (options.budgetMillis < 0) throw new IllegalArgumentException("--budget-ms must not be negative: " + options.budgetMillis);
+            return options;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.rothem.tree.textfeature;
+
+/**
+ * Splits a cache's entry bound over independently locked segments so that the segments together hold at most
+ * {@code maxEntries}, and none of them is left without room.
+ */
+final class CacheSegments {
+    private static final int MAX_SEGMENTS = 16;
+
+    private CacheSegments() {
+    }
+
+    /** Number of segments: a power of two, so a hash can be masked, and no larger than {@code maxEntries}. */
+    static int count(int maxEntries) {
+        return Math.min(MAX_SEGMENTS, Integer.highestOneBit(maxEntries));
+    }
+
+    /** Entries segment {@code index} of {@code count} may hold; the first {@code maxEntries % count} get one more. */
+    static int capacity(int maxEntries, int count, int index) {
+        return maxEntries / count + (index < maxEntries % count ? 1 : 0);
+    }
+
+    /** Index of the segment for {@code hashCode}, out of {@code count}. */
+    static int indexFor(int hashCode, int count) {
+        return (hashCode ^ (hashCode >>> 16)) & (count - 1);
+    }
+}
@@ -0,0 +1,152 @@
+package com.rothem.tree.textfeature;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashSet;
+
+/**
+ * Precompiled user dictionary: the sub-token automaton over the dictionary's base words, stored ready to
+ * use, plus the original KOMORAN text. {@code setUserDictionaryPath} recognizes these files by their header
+ * (magic number, format version and section lengths that add up to the file size) and memory-maps them, so
+ * no line is split and no automaton is built at startup.
+ *
+ * <p>KOMORAN itself only loads a text file by path, so the embedded text is copied out to a temp file
+ * (a kernel-side transfer, no parsing) for it to read. Files are limited to 2 GB.
+ *
+ * <p>Convert with {@code java -cp ... com.rothem.tree.textfeature.CompiledUserDictionary words.txt words.tfud}.
+ */
+public final class CompiledUserDictionary {
+    static final int MAGIC = 0x54465544;
+    static final int VERSION = 2;
+    // magic, version, flags, automaton length, text length
+    private static final int HEADER_BYTES = 24;
+    private static final int MULTI_WORD = 1;
+
+    private CompiledUserDictionary() {
+    }
+
+    /**
+     * A compiled dictionary opened for use; {@code komoranFile} is a temp file owned by the caller.
+     * {@code multiWord} tells whether any entry's word contains a space.
+     */
+    record Loaded(SubTokenMatcher subTokens, Path komoranFile, boolean multiWord) {
+    }
+
+    /**
+     * Compiles a KOMORAN-format text dictionary ({@code word\tTAG} per line) into {@code compiled},
+     * replacing it atomically.
+     */
+    public static void compile(Path textDictionary, Path compiled) throws IOException {
+        byte[] text = Files.readAllBytes(textDictionary);
+        LinkedHashSet<String> baseWords = new LinkedHashSet<>();
+        boolean multiWord = false;
+        for (String line : new String(text, StandardCharsets.UTF_8).split("\n")) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty()) continue;
+            multiWord |= UserDictionarySnapshot.isMultiWordEntry(trimmed);
+            String baseWord = UserDictionarySnapshot.baseWordOf(trimmed);
+            if (!baseWord.isEmpty()) {
+                baseWords.add(baseWord);
+            }
+        }
+        SubTokenMatcher subTokens = SubTokenMatcher.build(baseWords, TokenClassifier::isMeaningfulWord);
+        ByteArrayOutputStream automaton = new ByteArrayOutputStream();
+        subTokens.writeTo(new DataOutputStream(automaton));
+
+        Path absolute = compiled.toAbsolutePath();
+        Path temp = Files.createTempFile(absolute.getParent(), absolute.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream file = Files.newOutputStream(temp);
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(multiWord ? MULTI_WORD : 0);
+                out.writeInt(automaton.size());
+                out.writeLong(text.length);
+                automaton.writeTo(out);
+                out.write(text);
+            }
+            Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Whether {@code path} holds a compiled dictionary of this version. The magic number alone is not enough,
+     * since a text dictionary may start with an entry spelled {@code TFUD}.
+     */
+    static boolean isCompiled(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // keep reading until the header is full or the file ends
+            }
+            return !header.hasRemaining() && hasValidHeader(header.flip(), channel.size());
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static boolean hasValidHeader(ByteBuffer header, long fileSize) {
+        if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) return false;
+        int automatonLength = header.getInt(12);
+        long textLength = header.getLong(16);
+        return automatonLength >= 0 && textLength >= 0 && HEADER_BYTES + automatonLength + textLength == fileSize;
+    }
+
+    static Loaded load(Path compiled) throws IOException {
+        try (FileChannel channel = FileChannel.open(compiled, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+                throw new IllegalArgumentException("Not a compiled user dictionary: " + compiled);
+            }
+            int version = buffer.getInt(4);
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unsupported compiled user dictionary version " + version + ": " + compiled);
+            }
+            if (!hasValidHeader(buffer, buffer.capacity())) {
+                throw new IllegalArgumentException("Truncated compiled user dictionary: " + compiled);
+            }
+            boolean multiWord = (buffer.getInt(8) & MULTI_WORD) != 0;
+            int automatonLength = buffer.getInt(12);
+            long textLength = buffer.getLong(16);
+            SubTokenMatcher subTokens = SubTokenMatcher.read(buffer.position(HEADER_BYTES));
+            if (buffer.position() != HEADER_BYTES + automatonLength) {
+                throw new IllegalArgumentException("Corrupt compiled user dictionary: " + compiled);
+            }
+
+            Path komoranFile = Files.createTempFile("keyword-extractor-userdic", ".txt");
+            komoranFile.toFile().deleteOnExit();
+            try (FileChannel out = FileChannel.open(komoranFile, StandardOpenOption.WRITE)) {
+                long position = buffer.position();
+                long end = position + textLength;
+                while (position < end) {
+                    position += channel.transferTo(position, end - position, out);
+                }
+            }
+            return new Loaded(subTokens, komoranFile, multiWord);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("usage: CompiledUserDictionary <text dictionary> <compiled output>");
+            System.exit(2);
+        }
+        long start = System.nanoTime();
+        compile(Path.of(args[0]), Path.of(args[1]));
+        System.out.printf("compiled %s -> %s in %d ms%n", args[0], args[1], (System.nanoTime() - start) / 1_000_000);
+    }
+}
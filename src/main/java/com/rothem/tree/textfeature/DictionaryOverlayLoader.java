@@ -0,0 +1,21 @@
+package com.rothem.tree.textfeature;
+
+import java.io.IOException;
+import java.util.Collection;
+
+/**
+ * Supplies the user dictionary entries of a named overlay, e.g. one tenant's glossary.
+ * Called when the overlay is first used and again after it was evicted or invalidated; may be called
+ * from any extracting thread, so it must be thread-safe.
+ *
+ * @see TextFeatureExtractor.Builder#dictionaryOverlays(DictionaryOverlayLoader)
+ */
+@FunctionalInterface
+public interface DictionaryOverlayLoader {
+
+    /**
+     * Returns the overlay's entries: plain words (tagged as NNP) or already-formatted entries (e.g. "단어\tNNP").
+     * Throws {@link IllegalArgumentException} for a name it does not know.
+     */
+    Collection<String> load(String name) throws IOException;
+}
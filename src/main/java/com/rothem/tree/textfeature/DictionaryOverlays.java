@@ -0,0 +1,264 @@
+package com.rothem.tree.textfeature;
+
+import com.rothem.tree.textfeature.data.DictionaryOverlayStats;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Named user dictionary overlays of one extractor, e.g. one per tenant, loaded through a
+ * {@link DictionaryOverlayLoader} on first use. Each overlay is layered over the extractor's own dictionary
+ * and applied to the shared analyzer pool, so tenants share the KOMORAN model instead of loading one each.
+ *
+ * <p>An overlay's cost is its entries and automaton, its file (which repeats the base dictionary's lines), and
+ * the dictionary state KOMORAN builds from that file in every analyzer that has it loaded. Overlays that no call
+ * is using are evicted, least recently used first, while the total exceeds the budget, and once they have been
+ * idle for longer than the idle timeout. Evicted and superseded snapshots are unloaded from the idle analyzers
+ * holding them, so the budget bounds what stays loaded. An evicted overlay is loaded again on its next use.
+ */
+final class DictionaryOverlays {
+    /**
+     * Rough heap KOMORAN spends per byte of a loaded user dictionary file: each entry becomes trie nodes,
+     * boxed maps and strings, several hundred bytes for a line of a dozen.
+     */
+    private static final long KOMORAN_BYTES_PER_FILE_BYTE = 32;
+
+    private final DictionaryOverlayLoader loader;
+    private final long maxBytes;
+    private final long idleNanos;
+    // the extractor's dictionary lock: snapshot files are read under its read lock and deleted under its write lock
+    private final ReadWriteLock dictionaryLock;
+    private final Supplier<UserDictionarySnapshot> currentBase;
+    // drops a released snapshot from the analyzers holding it
+    private final Consumer<UserDictionarySnapshot> unloader;
+    private final AtomicLong versions = new AtomicLong();
+    // access order, so iteration starts at the least recently used overlay; guarded by this
+    private final LinkedHashMap<String, Overlay> overlays = new LinkedHashMap<>(16, 0.75f, true);
+    private long estimatedBytes;
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    DictionaryOverlays(DictionaryOverlayLoader loader, long maxBytes, long idleNanos, ReadWriteLock dictionaryLock,
+                       Supplier<UserDictionarySnapshot> currentBase, Consumer<UserDictionarySnapshot> unloader) {
+        this.loader = loader;
+        this.maxBytes = maxBytes;
+        this.idleNanos = idleNanos;
+        this.dictionaryLock = dictionaryLock;
+        this.currentBase = currentBase;
+        this.unloader = unloader;
+    }
+
+    /**
+     * Returns overlay {@code name}, loaded and layered over {@code base} or a newer base snapshot, and pins it
+     * against eviction until {@link #release(Overlay)}.
+     */
+    Overlay acquire(String name, UserDictionarySnapshot base) {
+        Overlay overlay;
+        synchronized (this) {
+            evictIdle(System.nanoTime());
+            overlay = overlays.computeIfAbsent(name, Overlay::new);
+            overlay.users++;
+        }
+        try {
+            overlay.prepare(base);
+        } catch (RuntimeException | Error e) {
+            release(overlay);
+            throw e;
+        }
+        synchronized (this) {
+            account(overlay);
+            evictOverBudget();
+        }
+        return overlay;
+    }
+
+    synchronized void release(Overlay overlay) {
+        account(overlay);
+        overlay.users--;
+        overlay.lastUsedNanos = System.nanoTime();
+        if (overlay.users == 0 && !overlay.loaded) {
+            // the first load failed; let the next call try again
+            overlays.remove(overlay.name, overlay);
+        } else {
+            evictOverBudget();
+        }
+    }
+
+    /** Reloads overlay {@code name} on its next use, or drops it now when no call is using it. */
+    synchronized void invalidate(String name) {
+        Overlay overlay = overlays.get(name);
+        if (overlay == null) return;
+        if (overlay.users == 0) {
+            evict(overlay);
+        } else {
+            overlay.stale = true;
+        }
+    }
+
+    /** Evicts every overlay idle for longer than the idle timeout; returns how many. */
+    synchronized int evictIdle() {
+        return evictIdle(System.nanoTime());
+    }
+
+    synchronized DictionaryOverlayStats stats() {
+        accountAll();
+        return new DictionaryOverlayStats(overlays.size(), estimatedBytes, loads.sum(), evictions.sum());
+    }
+
+    private int evictIdle(long now) {
+        if (idleNanos == 0) return 0;
+        int evicted = 0;
+        Iterator<Overlay> it = overlays.values().iterator();
+        while (it.hasNext()) {
+            Overlay overlay = it.next();
+            if (overlay.users > 0) continue;
+            // access order roughly follows last use, so the first recently used one ends the scan
+            if (now - overlay.lastUsedNanos <= idleNanos) break;
+            it.remove();
+            discard(overlay);
+            evicted++;
+        }
+        return evicted;
+    }
+
+    private void evictOverBudget() {
+        // analyzers load and drop overlays without the registry lock; catch up before evicting anything
+        if (estimatedBytes > maxBytes) accountAll();
+        Iterator<Overlay> it = overlays.values().iterator();
+        while (estimatedBytes > maxBytes && it.hasNext()) {
+            Overlay overlay = it.next();
+            if (overlay.users > 0) continue;
+            it.remove();
+            discard(overlay);
+        }
+    }
+
+    private void evict(Overlay overlay) {
+        overlays.remove(overlay.name, overlay);
+        discard(overlay);
+    }
+
+    private void accountAll() {
+        for (Overlay overlay : overlays.values()) {
+            account(overlay);
+        }
+    }
+
+    /** Brings the total up to date with the overlay's cost, which changes as analyzers load and drop it. */
+    private void account(Overlay overlay) {
+        long bytes = overlay.cost();
+        estimatedBytes += bytes - overlay.accountedBytes;
+        overlay.accountedBytes = bytes;
+    }
+
+    private void discard(Overlay overlay) {
+        estimatedBytes -= overlay.accountedBytes;
+        evictions.increment();
+        overlay.replace(null);
+    }
+
+    /** One named overlay; {@code users}, {@code lastUsedNanos} and {@code accountedBytes} are guarded by the registry. */
+    final class Overlay {
+        private final String name;
+        private int users;
+        private long lastUsedNanos;
+        private long accountedBytes;
+        private volatile boolean loaded;
+        private volatile boolean stale;
+        private Set<String> entries;
+        private SubTokenMatcher subTokens;
+        private boolean multiWord;
+        private volatile long bytes;
+        private UserDictionarySnapshot composedOver;
+        private volatile UserDictionarySnapshot snapshot;
+
+        private Overlay(String name) {
+            this.name = name;
+        }
+
+        /** Entries and automaton, plus the file and KOMORAN's copy of it in each analyzer holding the snapshot. */
+        private long cost() {
+            UserDictionarySnapshot current = snapshot;
+            if (current == null) return bytes;
+            long fileBytes = current.fileBytes();
+            return bytes + fileBytes + current.loadedAnalyzers() * fileBytes * KOMORAN_BYTES_PER_FILE_BYTE;
+        }
+
+        /** The latest snapshot of this overlay, layered over the base it was last prepared with. */
+        UserDictionarySnapshot snapshot() {
+            return snapshot;
+        }
+
+        /** Loads the entries if needed and layers them over the current base when {@code base} is newer. */
+        private synchronized void prepare(UserDictionarySnapshot base) {
+            if (!loaded || stale) {
+                load();
+                composedOver = null;
+            }
+            if (composedOver != null && composedOver.version() >= base.version()) return;
+
+            UserDictionarySnapshot next;
+            UserDictionarySnapshot over;
+            // the read lock keeps the base file from being deleted while it is copied
+            dictionaryLock.readLock().lock();
+            try {
+                over = currentBase.get();
+                next = UserDictionarySnapshot.overlay(versions.incrementAndGet(), over, entries, subTokens, multiWord);
+            } finally {
+                dictionaryLock.readLock().unlock();
+            }
+            replace(next);
+            composedOver = over;
+        }
+
+        private void load() {
+            Collection<String> words;
+            try {
+                words = loader.load(name);
+            } catch (IOException e) {
+                throw new IllegalStateException("Failed to load dictionary overlay: " + name, e);
+            }
+            LinkedHashSet<String> nextEntries = new LinkedHashSet<>();
+            LinkedHashSet<String> baseWords = new LinkedHashSet<>();
+            boolean nextMultiWord = false;
+            long nextBytes = 0;
+            for (String word : words) {
+                String entry = UserDictionarySnapshot.normalizeEntry(word);
+                if (entry == null || !nextEntries.add(entry)) continue;
+                nextMultiWord |= UserDictionarySnapshot.isMultiWordEntry(entry);
+                nextBytes += 88 + 2L * entry.length();
+                String baseWord = UserDictionarySnapshot.baseWordOf(entry);
+                if (!baseWord.isEmpty()) baseWords.add(baseWord);
+            }
+            entries = Collections.unmodifiableSet(nextEntries);
+            subTokens = UserDictionarySnapshot.compile(baseWords);
+            multiWord = nextMultiWord;
+            bytes = nextBytes + subTokens.estimatedBytes();
+            loaded = true;
+            stale = false;
+            loads.increment();
+        }
+
+        private void replace(UserDictionarySnapshot next) {
+            UserDictionarySnapshot previous = snapshot;
+            dictionaryLock.writeLock().lock();
+            try {
+                snapshot = next;
+                if (previous != null) previous.release();
+            } finally {
+                dictionaryLock.writeLock().unlock();
+            }
+            if (previous != null) unloader.accept(previous);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.rothem.tree.textfeature;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * JFR event for a user dictionary change: {@code publish} when a new version is built and published
+ * ({@code addUserDictionary}, {@code setUserDictionaryPath}, a transaction commit), {@code load} when
+ * a pooled analyzer loads it. Recorded when it takes longer than 10 ms unless the threshold is overridden.
+ */
+@Name("com.rothem.textfeature.DictionaryReload")
+@Label("User Dictionary Reload")
+@Category("Text Feature Extractor")
+@Threshold("10 ms")
+@StackTrace(false)
+final class DictionaryReloadEvent extends jdk.jfr.Event {
+    static final String PUBLISH = "publish";
+    static final String LOAD = "load";
+
+    @Label("Phase")
+    @Description("publish or load")
+    String phase;
+
+    @Label("Source")
+    @Description("entries, file or transaction; empty for load")
+    String source;
+
+    @Label("Version")
+    long version;
+
+    @Label("Entries")
+    int entryCount;
+}
@@ -0,0 +1,94 @@
+package com.rothem.tree.textfeature;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Read-only, memory-mapped table of corpus document frequencies, written by {@link DocumentFrequencyTableBuilder}.
+ * The mapping lives in the page cache, so every extractor and JVM on a host that opens the same file shares
+ * one copy and none of it counts against the heap. Safe for concurrent use.
+ *
+ * <p>Layout (big-endian): magic {@code "TFDF"}, format version, document count, total document length,
+ * term count, then the 64-bit term hashes in ascending order followed by their document frequencies.
+ * Terms are stored by hash only; lookups are a binary search.
+ */
+public final class DocumentFrequencyTable {
+    static final int MAGIC = 0x54464446;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 32;
+
+    private final MappedByteBuffer buffer;
+    private final long documentCount;
+    private final double averageDocumentLength;
+    private final int termCount;
+    private final int frequenciesOffset;
+
+    private DocumentFrequencyTable(MappedByteBuffer buffer) {
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("Not a document frequency table");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IllegalArgumentException("Unsupported document frequency table version: " + buffer.getInt(4));
+        }
+        this.documentCount = buffer.getLong(8);
+        long totalLength = buffer.getLong(16);
+        this.averageDocumentLength = documentCount == 0 ? 0 : (double) totalLength / documentCount;
+        this.termCount = buffer.getInt(24);
+        long hashesEnd = HEADER_BYTES + (long) termCount * Long.BYTES;
+        if (termCount < 0 || hashesEnd + (long) termCount * Integer.BYTES != buffer.capacity()) {
+            throw new IllegalArgumentException("Truncated document frequency table");
+        }
+        this.frequenciesOffset = (int) hashesEnd;
+    }
+
+    public static DocumentFrequencyTable open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // the mapping stays valid after the channel is closed
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.BIG_ENDIAN);
+            return new DocumentFrequencyTable(buffer);
+        }
+    }
+
+    public long documentCount() {
+        return documentCount;
+    }
+
+    /** Mean number of distinct terms per document in the corpus. */
+    public double averageDocumentLength() {
+        return averageDocumentLength;
+    }
+
+    public int termCount() {
+        return termCount;
+    }
+
+    /** Number of corpus documents containing {@code term}, or 0 when it was never seen. */
+    public int documentFrequency(String term) {
+        long hash = hash(term);
+        int lo = 0;
+        int hi = termCount - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            long probe = buffer.getLong(HEADER_BYTES + mid * Long.BYTES);
+            if (probe < hash) {
+                lo = mid + 1;
+            } else if (probe > hash) {
+                hi = mid - 1;
+            } else {
+                return buffer.getInt(frequenciesOffset + mid * Integer.BYTES);
+            }
+        }
+        return 0;
+    }
+
+    /** 64-bit FNV-1a with a final avalanche; part of the file format. */
+    static long hash(CharSequence term) {
+        return Hashes.hash64(term);
+    }
+}
@@ -0,0 +1,91 @@
+package com.rothem.tree.textfeature;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Counts document frequencies over a corpus and writes them as a {@link DocumentFrequencyTable} file.
+ * Feed it the terms of each document, e.g. the nouns from {@link TextFeatureExtractor#extractKeywords(String)}.
+ * Not thread-safe.
+ */
+public final class DocumentFrequencyTableBuilder {
+    private final Map<Long, Integer> frequencies = new HashMap<>();
+    private long documentCount;
+    private long totalLength;
+    private int minDocumentFrequency = 1;
+
+    /** Terms seen in fewer documents are left out of the table, which keeps it small. Defaults to 1. */
+    public DocumentFrequencyTableBuilder minDocumentFrequency(int minDocumentFrequency) {
+        if (minDocumentFrequency < 1) {
+            throw new IllegalArgumentException("minDocumentFrequency must be positive: " + minDocumentFrequency);
+        }
+        this.minDocumentFrequency = minDocumentFrequency;
+        return this;
+    }
+
+    /**
+     * Adds one document. Repeated terms count once, both toward their document frequency and toward the
+     * document's length, so passing the de-duplicated nouns of a document gives the same table as passing every
+     * occurrence; {@link KeywordRanker} measures the ranked text the same way.
+     */
+    public DocumentFrequencyTableBuilder addDocument(Collection<String> terms) {
+        documentCount++;
+        Set<Long> distinct = new HashSet<>();
+        for (String term : terms) {
+            long hash = DocumentFrequencyTable.hash(term);
+            if (distinct.add(hash)) {
+                frequencies.merge(hash, 1, Integer::sum);
+            }
+        }
+        totalLength += distinct.size();
+        return this;
+    }
+
+    public long documentCount() {
+        return documentCount;
+    }
+
+    /** Writes the table to {@code path}, replacing it atomically so readers never map a partial file. */
+    public void write(Path path) throws IOException {
+        long[] hashes = new long[frequencies.size()];
+        int count = 0;
+        for (Map.Entry<Long, Integer> entry : frequencies.entrySet()) {
+            if (entry.getValue() >= minDocumentFrequency) hashes[count++] = entry.getKey();
+        }
+        Arrays.sort(hashes, 0, count);
+
+        Path absolute = path.toAbsolutePath();
+        Path temp = Files.createTempFile(absolute.getParent(), absolute.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream file = Files.newOutputStream(temp);
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+                out.writeInt(DocumentFrequencyTable.MAGIC);
+                out.writeInt(DocumentFrequencyTable.VERSION);
+                out.writeLong(documentCount);
+                out.writeLong(totalLength);
+                out.writeInt(count);
+                out.writeInt(0);
+                for (int i = 0; i < count; i++) {
+                    out.writeLong(hashes[i]);
+                }
+                for (int i = 0; i < count; i++) {
+                    out.writeInt(frequencies.get(hashes[i]));
+                }
+            }
+            Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.rothem.tree.textfeature;
+
+import java.util.Arrays;
+
+/**
+ * Reusable near-duplicate signature filled by {@link TextFeatureExtractor#extractSignature}: a MinHash
+ * signature, its LSH band keys and a 64-bit SimHash fingerprint over a document's nouns and regex values.
+ * Keep one instance per thread and per {@link SignatureHasher}; refilling it allocates nothing once it has
+ * signed a document with as many features.
+ */
+public final class DocumentSignature {
+    private final int[] minHashes;
+    private final long[] bandKeys;
+    private final int[] simHashWeights = new int[Long.SIZE];
+    // feature hashes of the document being signed; grows to the largest document seen
+    private long[] featureHashes = new long[64];
+    private int featureHashCount;
+    private long simHash;
+    private int featureCount;
+
+    public DocumentSignature(SignatureHasher hasher) {
+        this.minHashes = new int[hasher.numHashes()];
+        this.bandKeys = new long[hasher.bands()];
+        clear();
+    }
+
+    /** MinHash values; the backing array, not a copy. */
+    public int[] minHashes() {
+        return minHashes;
+    }
+
+    /**
+     * One key per LSH band; documents sharing any band key are candidate near-duplicates.
+     * Key {@code i} already mixes in the band number, so all bands can share one index. The backing array.
+     */
+    public long[] bandKeys() {
+        return bandKeys;
+    }
+
+    public long simHash() {
+        return simHash;
+    }
+
+    /** Distinct nouns plus distinct regex values signed; 0 means the signature is empty and estimates no similarity. */
+    public int featureCount() {
+        return featureCount;
+    }
+
+    /** Estimated Jaccard similarity of the two feature sets: the fraction of equal MinHash values. */
+    public double jaccard(DocumentSignature other) {
+        if (other.minHashes.length != minHashes.length) {
+            throw new IllegalArgumentException("Signatures of different sizes");
+        }
+        if (featureCount == 0 || other.featureCount == 0) return 0.0;
+        int equal = 0;
+        for (int i = 0; i < minHashes.length; i++) {
+            if (minHashes[i] == other.minHashes[i]) equal++;
+        }
+        return (double) equal / minHashes.length;
+    }
+
+    /** Number of differing SimHash bits, 0 to 64. */
+    public int simHashDistance(DocumentSignature other) {
+        return Long.bitCount(simHash ^ other.simHash);
+    }
+
+    void clear() {
+        Arrays.fill(minHashes, Integer.MAX_VALUE);
+        Arrays.fill(bandKeys, 0L);
+        Arrays.fill(simHashWeights, 0);
+        featureHashCount = 0;
+        simHash = 0L;
+        featureCount = 0;
+    }
+
+    int[] simHashWeights() {
+        return simHashWeights;
+    }
+
+    void addFeatureHash(long hash) {
+        if (featureHashCount == featureHashes.length) {
+            featureHashes = Arrays.copyOf(featureHashes, featureHashCount * 2);
+        }
+        featureHashes[featureHashCount++] = hash;
+    }
+
+    /** Sorts the collected feature hashes and drops repeats; returns how many remain at the front of {@link #featureHashes()}. */
+    int distinctFeatureHashes() {
+        Arrays.sort(featureHashes, 0, featureHashCount);
+        int distinct = 0;
+        for (int i = 0; i < featureHashCount; i++) {
+            if (distinct == 0 || featureHashes[i] != featureHashes[distinct - 1]) {
+                featureHashes[distinct++] = featureHashes[i];
+            }
+        }
+        featureHashCount = distinct;
+        return distinct;
+    }
+
+    long[] featureHashes() {
+        return featureHashes;
+    }
+
+    void finish(long simHash, int featureCount) {
+        this.simHash = simHash;
+        this.featureCount = featureCount;
+    }
+}
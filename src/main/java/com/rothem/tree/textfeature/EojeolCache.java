@@ -0,0 +1,140 @@
+package com.rothem.tree.textfeature;
+
+import com.rothem.tree.textfeature.data.CacheStats;
+import kr.co.shineware.nlp.komoran.model.Token;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Size-bounded LRU cache of KOMORAN analyses of single eojeols (whitespace-delimited word forms).
+ * Each entry keeps the morphemes, tags and eojeol-relative offsets of one eojeol in flat arrays.
+ *
+ * <p>The cache holds analyses made with one user dictionary version at a time: the first access with a
+ * newer version clears it, and accesses with an older one bypass it.
+ * Split into independently locked segments to keep contention low.
+ */
+final class EojeolCache {
+    /** Longer eojeols (URLs, run-on text) are rarely repeated and would pin too much memory. */
+    static final int MAX_CACHED_EOJEOL_LENGTH = 32;
+
+    private final Segment[] segments;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private volatile long dictionaryVersion;
+
+    EojeolCache(int maxEntries) {
+        if (maxEntries < 1) throw new IllegalArgumentException("maxEntries must be positive: " + maxEntries);
+        segments = new Segment[CacheSegments.count(maxEntries)];
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new Segment(CacheSegments.capacity(maxEntries, segments.length, i));
+        }
+    }
+
+    static boolean isCacheable(String eojeol) {
+        return eojeol.length() <= MAX_CACHED_EOJEOL_LENGTH;
+    }
+
+    /** Returns the cached analysis of {@code eojeol} under {@code version}, or {@code null} on a miss. */
+    Entry get(long version, String eojeol) {
+        Entry entry = isCurrent(version) ? segmentFor(eojeol).get(eojeol) : null;
+        // a put racing with the clear may have left an entry of the previous version behind
+        if (entry == null || entry.dictionaryVersion() != version) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry;
+    }
+
+    void put(String eojeol, Entry entry) {
+        if (isCurrent(entry.dictionaryVersion())) segmentFor(eojeol).put(eojeol, entry);
+    }
+
+    CacheStats stats() {
+        long size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), size);
+    }
+
+    private boolean isCurrent(long version) {
+        long current = dictionaryVersion;
+        if (version == current) return true;
+        if (version < current) return false;
+        synchronized (this) {
+            if (version > dictionaryVersion) {
+                for (Segment segment : segments) {
+                    segment.clear();
+                }
+                dictionaryVersion = version;
+            }
+            return version == dictionaryVersion;
+        }
+    }
+
+    private Segment segmentFor(String eojeol) {
+        return segments[CacheSegments.indexFor(eojeol.hashCode(), segments.length)];
+    }
+
+    /**
+     * Morphemes of one eojeol as analyzed with {@code dictionaryVersion}: {@code parts} alternates morph and tag,
+     * {@code spans} begin and end offsets.
+     */
+    record Entry(long dictionaryVersion, String[] parts, int[] spans) {
+        static Entry of(long dictionaryVersion, List<Token> tokens) {
+            String[] parts = new String[tokens.size() * 2];
+            int[] spans = new int[tokens.size() * 2];
+            for (int i = 0; i < tokens.size(); i++) {
+                Token token = tokens.get(i);
+                parts[2 * i] = token.getMorph();
+                parts[2 * i + 1] = token.getPos();
+                spans[2 * i] = token.getBeginIndex();
+                spans[2 * i + 1] = token.getEndIndex();
+            }
+            return new Entry(dictionaryVersion, parts, spans);
+        }
+
+        /** Appends the tokens with their offsets shifted by {@code base}, the eojeol's offset in the text. */
+        void appendTo(List<Token> out, int base) {
+            for (int i = 0; i < spans.length; i += 2) {
+                out.add(new Token(parts[i], parts[i + 1], base + spans[i], base + spans[i + 1]));
+            }
+        }
+    }
+
+    private final class Segment {
+        private final LinkedHashMap<String, Entry> map;
+
+        Segment(int capacity) {
+            this.map = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                    if (size() <= capacity) return false;
+                    evictions.increment();
+                    return true;
+                }
+            };
+        }
+
+        synchronized Entry get(String eojeol) {
+            return map.get(eojeol);
+        }
+
+        synchronized void put(String eojeol, Entry entry) {
+            map.put(eojeol, entry);
+        }
+
+        synchronized void clear() {
+            map.clear();
+        }
+
+        synchronized int size() {
+            return map.size();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.rothem.tree.textfeature;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR event for one extraction (one chunk when streaming). Recorded only when it takes longer than
+ * the threshold, 20 ms unless overridden, e.g. {@code -XX:StartFlightRecording:settings=custom.jfc} with
+ * {@code com.rothem.textfeature.Extraction#threshold=50 ms}.
+ */
+@Name("com.rothem.textfeature.Extraction")
+@Label("Keyword Extraction")
+@Category("Text Feature Extractor")
+@Threshold("20 ms")
+@StackTrace(false)
+final class ExtractionEvent extends jdk.jfr.Event {
+    @Label("Input Length")
+    @Description("Characters analyzed")
+    int inputLength;
+
+    @Label("Tokens")
+    int tokenCount;
+
+    @Label("Nouns")
+    int nounCount;
+
+    @Label("Regex Matches")
+    int regexMatchCount;
+
+    @Label("Fallback")
+    @Description("KOMORAN threw and the input was processed without morphemes")
+    boolean fallback;
+
+    @Label("Degraded")
+    @Description("The input exceeded the size or time budget and was partly or wholly tokenized without KOMORAN")
+    boolean degraded;
+
+    @Label("Regex Scan")
+    @Timespan(Timespan.NANOSECONDS)
+    long regexScan;
+
+    @Label("Analyzer Wait")
+    @Timespan(Timespan.NANOSECONDS)
+    long analyzerWait;
+
+    @Label("Dictionary Sync")
+    @Timespan(Timespan.NANOSECONDS)
+    long dictionarySync;
+
+    @Label("Analyze")
+    @Timespan(Timespan.NANOSECONDS)
+    long analyze;
+
+    @Label("Noun Filter")
+    @Timespan(Timespan.NANOSECONDS)
+    long nounFilter;
+
+    @Label("Degraded Tokenize")
+    @Timespan(Timespan.NANOSECONDS)
+    long degradedTokenize;
+
+    @Label("Filename")
+    @Timespan(Timespan.NANOSECONDS)
+    long filename;
+
+    @Label("Post-process")
+    @Timespan(Timespan.NANOSECONDS)
+    long postProcess;
+}
@@ -0,0 +1,43 @@
+package com.rothem.tree.textfeature;
+
+/**
+ * Receives per-stage timings and counters from a {@link TextFeatureExtractor}.
+ * Every method defaults to a no-op, so an adapter (Micrometer, Dropwizard, a log line) overrides only what it needs.
+ *
+ * <p>Methods are called on the extracting thread, after the extraction finished; they must be thread-safe,
+ * cheap and must not throw. Cache hits are not reported. A streamed input reports once per chunk.
+ */
+public interface ExtractionMetrics {
+    ExtractionMetrics NOOP = new ExtractionMetrics() {
+    };
+
+    /** Time spent in one stage of one extraction. Stages that did not run are not reported. */
+    default void recordStage(ExtractionStage stage, long nanos) {
+    }
+
+    /**
+     * Totals of one extraction.
+     *
+     * @param inputLength     characters analyzed
+     * @param tokenCount      morphemes returned by KOMORAN
+     * @param nounCount       nouns in the result
+     * @param regexMatchCount regex matches in the result, over all keys
+     * @param nanos           wall time of the whole extraction
+     */
+    default void recordExtraction(int inputLength, int tokenCount, int nounCount, int regexMatchCount, long nanos) {
+    }
+
+    /**
+     * KOMORAN threw while analyzing and the extraction went on with no morphemes, so only regex
+     * matches and filename tokens were returned for this input.
+     */
+    default void analyzeFailed(int inputLength, Exception error) {
+    }
+
+    /**
+     * The input exceeded the extractor's size or time budget: only its first {@code analyzedLength} characters
+     * went through KOMORAN and the rest were tokenized the cheap way, so the result is marked degraded.
+     */
+    default void degraded(int inputLength, int analyzedLength) {
+    }
+}
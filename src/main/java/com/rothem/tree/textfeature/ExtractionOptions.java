@@ -0,0 +1,147 @@
+package com.rothem.tree.textfeature;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Selects the stages an extraction runs: the regex keys to report, KOMORAN noun extraction, and filename
+ * tokens. Stages that are off are skipped, not filtered afterwards; with nouns off no analyzer is borrowed,
+ * so no KOMORAN model is ever loaded for it. Immutable and thread-safe.
+ *
+ * <p>Selected outputs are identical to a full extraction. Nouns therefore still run the regex keys that
+ * mask entities out of noun extraction, and a key whose matches are dropped when an earlier key's match
+ * contains them (NUMBER, the phone keys, ACCOUNT) still runs the keys before it; only the selected keys
+ * are reported.
+ *
+ * <p>{@link Builder#dictionaryOverlay(String)} names the user dictionary overlay (e.g. a tenant's glossary)
+ * the nouns are extracted with.
+ *
+ * @see TextFeatureExtractor.Builder#options(ExtractionOptions)
+ * @see TextFeatureExtractor#extractKeywords(String, ExtractionOptions)
+ */
+public final class ExtractionOptions {
+    /** Every stage; the default. */
+    public static final ExtractionOptions ALL = builder().build();
+    /** Regex entities only, e.g. for PII scanning; never touches KOMORAN. */
+    public static final ExtractionOptions REGEX_ONLY = builder().nouns(false).filenameTokens(false).build();
+    /** Nouns and filename tokens, without reporting regex matches. */
+    public static final ExtractionOptions NOUNS_ONLY = builder().regexKeys(EnumSet.noneOf(RegexExtractorKey.class)).build();
+    /** Filename tokens of inputs that look like a filename; never touches KOMORAN. */
+    public static final ExtractionOptions FILENAME_ONLY =
+            builder().regexKeys(EnumSet.noneOf(RegexExtractorKey.class)).nouns(false).build();
+
+    private final Set<RegexExtractorKey> regexKeys;
+    private final boolean nouns;
+    private final boolean filenameTokens;
+    private final String dictionaryOverlay;
+    private final Set<RegexExtractorKey> scanKeys;
+
+    private ExtractionOptions(Builder builder) {
+        this.regexKeys = Collections.unmodifiableSet(EnumSet.copyOf(builder.regexKeys));
+        this.nouns = builder.nouns;
+        this.filenameTokens = builder.filenameTokens;
+        this.dictionaryOverlay = builder.dictionaryOverlay;
+        this.scanKeys = Collections.unmodifiableSet(RegexExtractor.keysToScan(builder.regexKeys, builder.nouns));
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /** Regex keys reported in results. */
+    public Set<RegexExtractorKey> regexKeys() {
+        return regexKeys;
+    }
+
+    public boolean nouns() {
+        return nouns;
+    }
+
+    public boolean filenameTokens() {
+        return filenameTokens;
+    }
+
+    /** Name of the dictionary overlay nouns are extracted with, or {@code null} for the extractor's own dictionary. */
+    public String dictionaryOverlay() {
+        return dictionaryOverlay;
+    }
+
+    /** These options with no regex key reported, for callers that only use the nouns. */
+    ExtractionOptions withoutRegexKeys() {
+        if (regexKeys.isEmpty()) return this;
+        return builder().regexKeys(EnumSet.noneOf(RegexExtractorKey.class)).nouns(nouns).filenameTokens(filenameTokens)
+                .dictionaryOverlay(dictionaryOverlay).build();
+    }
+
+    /** Keys the regex pass has to run for these options; a superset of {@link #regexKeys()}. */
+    Set<RegexExtractorKey> scanKeys() {
+        return scanKeys;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ExtractionOptions other)) return false;
+        return nouns == other.nouns && filenameTokens == other.filenameTokens && regexKeys.equals(other.regexKeys)
+                && Objects.equals(dictionaryOverlay, other.dictionaryOverlay);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(regexKeys, nouns, filenameTokens, dictionaryOverlay);
+    }
+
+    @Override
+    public String toString() {
+        return "ExtractionOptions{regexKeys=" + regexKeys + ", nouns=" + nouns + ", filenameTokens=" + filenameTokens
+                + ", dictionaryOverlay=" + dictionaryOverlay + "}";
+    }
+
+    public static final class Builder {
+        private EnumSet<RegexExtractorKey> regexKeys = EnumSet.allOf(RegexExtractorKey.class);
+        private boolean nouns = true;
+        private boolean filenameTokens = true;
+        private String dictionaryOverlay;
+
+        private Builder() {
+        }
+
+        /** Regex keys to report; empty for none. Defaults to every key. */
+        public Builder regexKeys(Set<RegexExtractorKey> regexKeys) {
+            this.regexKeys = regexKeys.isEmpty() ? EnumSet.noneOf(RegexExtractorKey.class) : EnumSet.copyOf(regexKeys);
+            return this;
+        }
+
+        public Builder regexKeys(RegexExtractorKey first, RegexExtractorKey... rest) {
+            this.regexKeys = EnumSet.of(first, rest);
+            return this;
+        }
+
+        /** KOMORAN noun extraction and its post-processing. On by default. */
+        public Builder nouns(boolean nouns) {
+            this.nouns = nouns;
+            return this;
+        }
+
+        /** Filename tokens for inputs that look like a filename. On by default. */
+        public Builder filenameTokens(boolean filenameTokens) {
+            this.filenameTokens = filenameTokens;
+            return this;
+        }
+
+        /**
+         * Extracts nouns with the named overlay of the extractor's {@link DictionaryOverlayLoader} layered over its
+         * own user dictionary; {@code null} (the default) uses the extractor's dictionary alone.
+         */
+        public Builder dictionaryOverlay(String dictionaryOverlay) {
+            this.dictionaryOverlay = dictionaryOverlay;
+            return this;
+        }
+
+        public ExtractionOptions build() {
+            return new ExtractionOptions(this);
+        }
+    }
+}
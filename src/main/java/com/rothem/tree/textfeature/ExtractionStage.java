@@ -0,0 +1,26 @@
+package com.rothem.tree.textfeature;
+
+/**
+ * Stages of one extraction, in pipeline order, as reported to {@link ExtractionMetrics}.
+ */
+public enum ExtractionStage {
+    /** Single regex pass producing the matches and the spans nouns must not overlap. */
+    REGEX_SCAN,
+    /** Waiting for a pooled KOMORAN analyzer, including creating (and loading the model of) a new one. */
+    ANALYZER_WAIT,
+    /** Loading a newer user dictionary into the analyzer. */
+    DICTIONARY_SYNC,
+    /** {@code Komoran.analyze}. */
+    ANALYZE,
+    /** Noun tag filtering, normalization and user dictionary sub-token expansion. */
+    NOUN_FILTER,
+    /**
+     * Filename-style tokenizing of the part of an input left over by the size or time budget,
+     * in place of {@link #ANALYZE} and {@link #NOUN_FILTER}.
+     */
+    DEGRADED,
+    /** Filename tokenizing, for inputs that look like a filename. */
+    FILENAME,
+    /** Whitespace splitting and redundant short Latin token removal. */
+    POST_PROCESS
+}
@@ -0,0 +1,116 @@
+package com.rothem.tree.textfeature;
+
+/**
+ * Stage timings and counters of one extraction, filled in as it runs and reported when it ends.
+ */
+final class ExtractionTrace {
+    private static final ExtractionStage[] STAGES = ExtractionStage.values();
+    // isEnabled() does not depend on the instance, so one probe tells whether a recording wants the event
+    private static final ExtractionEvent PROBE = new ExtractionEvent();
+
+    // null unless a JFR recording has the event enabled, so extractions allocate nothing for it otherwise
+    private final ExtractionEvent event = PROBE.isEnabled() ? new ExtractionEvent() : null;
+    private final long start = System.nanoTime();
+    private final long[] stageNanos = new long[STAGES.length];
+    private int stagesRun;
+    private long mark = start;
+    private int tokenCount;
+    private Exception analyzeFailure;
+    private int degradedFrom = -1;
+
+    ExtractionTrace() {
+        if (event != null) event.begin();
+    }
+
+    /** Charges the time since the previous lap to {@code stage}. */
+    void lap(ExtractionStage stage) {
+        long now = System.nanoTime();
+        stageNanos[stage.ordinal()] += now - mark;
+        stagesRun |= 1 << stage.ordinal();
+        mark = now;
+    }
+
+    void tokens(int count) {
+        tokenCount = count;
+    }
+
+    void analyzeFailed(Exception e) {
+        analyzeFailure = e;
+    }
+
+    /** Marks the input from {@code offset} on as left to the degraded path. */
+    void degradeFrom(int offset) {
+        degradedFrom = offset;
+    }
+
+    /** Offset from which the input took the degraded path, or {@code -1} when it was analyzed in full. */
+    int degradedFrom() {
+        return degradedFrom;
+    }
+
+    boolean degraded() {
+        return degradedFrom >= 0;
+    }
+
+    /** Wall time since the extraction started, up to now rather than to the last lap. */
+    long runningNanos() {
+        return System.nanoTime() - start;
+    }
+
+    long stageNanos(ExtractionStage stage) {
+        return stageNanos[stage.ordinal()];
+    }
+
+    int tokenCount() {
+        return tokenCount;
+    }
+
+    boolean fellBack() {
+        return analyzeFailure != null;
+    }
+
+    long elapsedNanos() {
+        return mark - start;
+    }
+
+    /** Reports to {@code metrics} and, when the extraction exceeded its threshold in a JFR recording, commits the event. */
+    void report(ExtractionMetrics metrics, int inputLength, int nounCount, int regexMatchCount) {
+        if (event != null) {
+            event.end();
+            if (event.shouldCommit()) {
+                commitEvent(inputLength, nounCount, regexMatchCount);
+            }
+        }
+        if (metrics == ExtractionMetrics.NOOP) return;
+        for (ExtractionStage stage : STAGES) {
+            if ((stagesRun & 1 << stage.ordinal()) != 0) {
+                metrics.recordStage(stage, stageNanos[stage.ordinal()]);
+            }
+        }
+        if (analyzeFailure != null) {
+            metrics.analyzeFailed(inputLength, analyzeFailure);
+        }
+        if (degradedFrom >= 0) {
+            metrics.degraded(inputLength, degradedFrom);
+        }
+        metrics.recordExtraction(inputLength, tokenCount, nounCount, regexMatchCount, elapsedNanos());
+    }
+
+    private void commitEvent(int inputLength, int nounCount, int regexMatchCount) {
+        event.inputLength = inputLength;
+        event.tokenCount = tokenCount;
+        event.nounCount = nounCount;
+        event.regexMatchCount = regexMatchCount;
+        event.fallback = fellBack();
+        event.degraded = degraded();
+        event.regexScan = stageNanos(ExtractionStage.REGEX_SCAN);
+        event.analyzerWait = stageNanos(ExtractionStage.ANALYZER_WAIT);
+        event.dictionarySync = stageNanos(ExtractionStage.DICTIONARY_SYNC);
+        event.analyze = stageNanos(ExtractionStage.ANALYZE);
+        event.nounFilter = stageNanos(ExtractionStage.NOUN_FILTER);
+        event.degradedTokenize = stageNanos(ExtractionStage.DEGRADED);
+        event.filename = stageNanos(ExtractionStage.FILENAME);
+        event.postProcess = stageNanos(ExtractionStage.POST_PROCESS);
+        event.commit();
+    }
+}
@@ -0,0 +1,170 @@
+package com.rothem.tree.textfeature;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hashing-trick vectorizer configuration: nouns, the regex key types found and, optionally, n-grams over the
+ * noun list are hashed (MurmurHash3, one seed per feature family) into {@code dimension} buckets.
+ * Values are 1 per feature, or its term frequency when {@code termFrequency} is set.
+ *
+ * <p>The n-grams run over the extracted nouns as listed, not over the text: each noun appears once, at its first
+ * occurrence, and user dictionary words found inside a compound follow it. So a recurring phrase is hashed once,
+ * nouns far apart in the text can pair up, and a compound pairs with its own sub-tokens.
+ * Immutable and thread-safe.
+ *
+ * @see TextFeatureExtractor#extractFeatures(String, FeatureHasher, FeatureVector)
+ */
+public final class FeatureHasher {
+    private static final int NOUN_SEED = 0x6e6f756e;
+    private static final int REGEX_SEED = 0x72656765;
+    private static final int NGRAM_SEED = 0x6e67726d;
+
+    private final int dimension;
+    private final boolean termFrequency;
+    private final int maxNgram;
+    private final int[] regexIndices;
+
+    private FeatureHasher(Builder builder) {
+        this.dimension = builder.dimension;
+        this.termFrequency = builder.termFrequency;
+        this.maxNgram = builder.maxNgram;
+
+        RegexExtractorKey[] keys = RegexExtractorKey.values();
+        this.regexIndices = new int[keys.length];
+        for (RegexExtractorKey key : keys) {
+            regexIndices[key.ordinal()] = bucket(hash(REGEX_SEED, key.keyName()));
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public int dimension() {
+        return dimension;
+    }
+
+    public boolean termFrequency() {
+        return termFrequency;
+    }
+
+    public int maxNgram() {
+        return maxNgram;
+    }
+
+    /** Bucket of a noun feature, e.g. to map model weights back to terms. */
+    public int nounIndex(String noun) {
+        return bucket(hash(NOUN_SEED, noun));
+    }
+
+    /** Bucket of a regex key type feature. */
+    public int regexIndex(RegexExtractorKey key) {
+        return regexIndices[key.ordinal()];
+    }
+
+    /**
+     * Appends the features of one document to {@code out} and sorts and merges it.
+     *
+     * @param nouns   nouns in first-occurrence order; n-grams are taken over this order
+     * @param repeats occurrences beyond the first, by noun; only read (and only required) when {@code termFrequency} is set
+     * @param regex   regex matches by key name
+     */
+    void hashInto(Collection<String> nouns, Map<String, Integer> repeats, Map<String, List<String>> regex,
+                  FeatureVector out) {
+        int[] window = out.window(maxNgram);
+        int seen = 0;
+        for (String noun : nouns) {
+            int h = hash(NOUN_SEED, noun);
+            float tf = termFrequency ? 1 + repeats.getOrDefault(noun, 0) : 1;
+            out.add(bucket(h), tf);
+
+            if (maxNgram > 1) {
+                // window holds the hashes of the previous maxNgram - 1 nouns, most recent last
+                System.arraycopy(window, 1, window, 0, maxNgram - 1);
+                window[maxNgram - 1] = h;
+                seen++;
+                int ngram = h;
+                for (int n = 2; n <= Math.min(maxNgram, seen); n++) {
+                    ngram = mix(ngram * 31 + window[maxNgram - n] + NGRAM_SEED + n);
+                    out.add(bucket(ngram), 1);
+                }
+            }
+        }
+
+        for (RegexExtractorKey key : RegexExtractorKey.values()) {
+            List<String> matches = regex.get(key.keyName());
+            if (matches == null || matches.isEmpty()) continue;
+            out.add(regexIndices[key.ordinal()], termFrequency ? matches.size() : 1);
+        }
+
+        out.sortAndMerge();
+    }
+
+    private int bucket(int hash) {
+        return Math.floorMod(hash, dimension);
+    }
+
+    // MurmurHash3 x86_32 over the UTF-16 code units, two per block
+    static int hash(int seed, CharSequence s) {
+        int h = seed;
+        int length = s.length();
+        int i = 0;
+        for (; i + 1 < length; i += 2) {
+            int k = s.charAt(i) | s.charAt(i + 1) << 16;
+            h ^= mixK(k);
+            h = Integer.rotateLeft(h, 13) * 5 + 0xe6546b64;
+        }
+        if (i < length) {
+            h ^= mixK(s.charAt(i));
+        }
+        return mix(h ^ length * 2);
+    }
+
+    private static int mixK(int k) {
+        k *= 0xcc9e2d51;
+        k = Integer.rotateLeft(k, 15);
+        return k * 0x1b873593;
+    }
+
+    private static int mix(int h) {
+        return Hashes.mix32(h);
+    }
+
+    public static final class Builder {
+        private int dimension = 1 << 20;
+        private boolean termFrequency;
+        private int maxNgram = 1;
+
+        private Builder() {
+        }
+
+        /** Number of hash buckets. Defaults to 2^20. */
+        public Builder dimension(int dimension) {
+            if (dimension < 1) throw new IllegalArgumentException("dimension must be positive: " + dimension);
+            this.dimension = dimension;
+            return this;
+        }
+
+        /** Use occurrence counts instead of 1 for nouns and regex key types. Off by default. */
+        public Builder termFrequency(boolean termFrequency) {
+            this.termFrequency = termFrequency;
+            return this;
+        }
+
+        /**
+         * Also hash n-grams of up to {@code maxNgram} nouns adjacent in the extracted noun list (see the class
+         * comment). {@code 1} (the default) hashes nouns only.
+         */
+        public Builder maxNgram(int maxNgram) {
+            if (maxNgram < 1) throw new IllegalArgumentException("maxNgram must be at least 1: " + maxNgram);
+            this.maxNgram = maxNgram;
+            return this;
+        }
+
+        public FeatureHasher build() {
+            return new FeatureHasher(this);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.rothem.tree.textfeature;
+
+import java.util.Arrays;
+
+/**
+ * Reusable sparse vector filled by {@link TextFeatureExtractor#extractFeatures}. Entries are sorted by index
+ * with no duplicates; {@link #indices()} and {@link #values()} expose the backing arrays, valid up to {@link #size()}.
+ *
+ * <p>Keep one instance per thread and pass it to every call: once its arrays have grown to the largest
+ * document seen, vectorizing allocates nothing for the output.
+ */
+public final class FeatureVector {
+    private int[] indices;
+    private float[] values;
+    private int size;
+
+    // sort keys and merge target, swapped with indices/values after each merge
+    private long[] sortKeys;
+    private int[] mergedIndices;
+    private float[] mergedValues;
+    private int[] window = new int[0];
+
+    public FeatureVector() {
+        this(64);
+    }
+
+    public FeatureVector(int initialCapacity) {
+        int capacity = Math.max(1, initialCapacity);
+        this.indices = new int[capacity];
+        this.values = new float[capacity];
+        this.sortKeys = new long[capacity];
+        this.mergedIndices = new int[capacity];
+        this.mergedValues = new float[capacity];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int[] indices() {
+        return indices;
+    }
+
+    public float[] values() {
+        return values;
+    }
+
+    public int index(int i) {
+        return indices[i];
+    }
+
+    public float value(int i) {
+        return values[i];
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    void add(int index, float value) {
+        if (size == indices.length) grow();
+        indices[size] = index;
+        values[size] = value;
+        size++;
+    }
+
+    /** Scratch buffer of at least {@code length} ints for n-gram hashing. */
+    int[] window(int length) {
+        if (window.length < length) window = new int[length];
+        return window;
+    }
+
+    /** Sorts entries by index and sums the values of colliding indices. */
+    void sortAndMerge() {
+        if (size < 2) return;
+        for (int i = 0; i < size; i++) {
+            sortKeys[i] = (long) indices[i] << 32 | i;
+        }
+        Arrays.sort(sortKeys, 0, size);
+
+        int merged = 0;
+        for (int i = 0; i < size; i++) {
+            int index = (int) (sortKeys[i] >>> 32);
+            float value = values[(int) sortKeys[i]];
+            if (merged > 0 && mergedIndices[merged - 1] == index) {
+                mergedValues[merged - 1] += value;
+            } else {
+                mergedIndices[merged] = index;
+                mergedValues[merged] = value;
+                merged++;
+            }
+        }
+
+        int[] swapIndices = indices;
+        float[] swapValues = values;
+        indices = mergedIndices;
+        values = mergedValues;
+        mergedIndices = swapIndices;
+        mergedValues = swapValues;
+        size = merged;
+    }
+
+    private void grow() {
+        int capacity = indices.length * 2;
+        indices = Arrays.copyOf(indices, capacity);
+        values = Arrays.copyOf(values, capacity);
+        sortKeys = new long[capacity];
+        mergedIndices = new int[capacity];
+        mergedValues = new float[capacity];
+    }
+}
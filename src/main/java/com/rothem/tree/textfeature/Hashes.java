@@ -0,0 +1,43 @@
+package com.rothem.tree.textfeature;
+
+/**
+ * Stable, seedable string hashes shared by the on-disk formats and the signature code.
+ * Changing them changes {@link DocumentFrequencyTable} files and signatures, so they are fixed.
+ */
+final class Hashes {
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+
+    private Hashes() {
+    }
+
+    /** 64-bit FNV-1a over the UTF-16 code units, starting from {@code seed}, with a final avalanche. */
+    static long hash64(long seed, CharSequence s) {
+        long h = seed;
+        for (int i = 0; i < s.length(); i++) {
+            h = (h ^ s.charAt(i)) * 0x100000001b3L;
+        }
+        return mix64(h);
+    }
+
+    static long hash64(CharSequence s) {
+        return hash64(FNV_OFFSET, s);
+    }
+
+    /** MurmurHash3 fmix64. */
+    static long mix64(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        return h ^ h >>> 33;
+    }
+
+    /** MurmurHash3 fmix32. */
+    static int mix32(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        return h ^ h >>> 16;
+    }
+}
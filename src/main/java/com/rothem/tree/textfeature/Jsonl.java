@@ -0,0 +1,182 @@
+package com.rothem.tree.textfeature;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Just enough JSON for {@link BulkIndexer}: reading one top-level field of a JSONL record and writing
+ * strings, string arrays and string-array maps. Keeps the library free of a JSON dependency.
+ */
+final class Jsonl {
+
+    private Jsonl() {
+    }
+
+    /**
+     * Returns the value of the top-level field {@code name} of the JSON object in {@code line}: strings
+     * unescaped, other scalars as written, {@code null} when the field is absent or {@code null}.
+     * Objects and arrays are returned as their raw JSON text.
+     *
+     * @throws IllegalArgumentException if {@code line} is not a JSON object
+     */
+    static String field(String line, String name) {
+        Cursor c = new Cursor(line);
+        c.skipWhitespace();
+        c.expect('{');
+        c.skipWhitespace();
+        if (c.peek() == '}') return null;
+        while (true) {
+            c.skipWhitespace();
+            String key = c.string();
+            c.skipWhitespace();
+            c.expect(':');
+            c.skipWhitespace();
+            if (key.equals(name)) return c.peek() == '"' ? c.string() : nullIfNull(c.rawValue());
+            c.rawValue();
+            c.skipWhitespace();
+            if (c.peek() == '}') return null;
+            c.expect(',');
+        }
+    }
+
+    private static String nullIfNull(String raw) {
+        return raw.equals("null") ? null : raw;
+    }
+
+    static void appendString(StringBuilder out, String s) {
+        out.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char ch = s.charAt(i);
+            switch (ch) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                default -> {
+                    if (ch < 0x20) {
+                        out.append(String.format("\\u%04x", (int) ch));
+                    } else {
+                        out.append(ch);
+                    }
+                }
+            }
+        }
+        out.append('"');
+    }
+
+    static void appendStrings(StringBuilder out, Collection<String> values) {
+        out.append('[');
+        boolean first = true;
+        for (String value : values) {
+            if (!first) out.append(',');
+            appendString(out, value);
+            first = false;
+        }
+        out.append(']');
+    }
+
+    /** Writes the non-empty lists only. */
+    static void appendStringLists(StringBuilder out, Map<String, List<String>> values) {
+        out.append('{');
+        boolean first = true;
+        for (Map.Entry<String, List<String>> entry : values.entrySet()) {
+            if (entry.getValue().isEmpty()) continue;
+            if (!first) out.append(',');
+            appendString(out, entry.getKey());
+            out.append(':');
+            appendStrings(out, entry.getValue());
+            first = false;
+        }
+        out.append('}');
+    }
+
+    private static final class Cursor {
+        private final String s;
+        private int pos;
+
+        Cursor(String s) {
+            this.s = s;
+        }
+
+        char peek() {
+            if (pos >= s.length()) throw error("unexpected end");
+            return s.charAt(pos);
+        }
+
+        void expect(char ch) {
+            if (peek() != ch) throw error("expected '" + ch + "'");
+            pos++;
+        }
+
+        void skipWhitespace() {
+            while (pos < s.length() && Character.isWhitespace(s.charAt(pos))) pos++;
+        }
+
+        String string() {
+            expect('"');
+            StringBuilder sb = null;
+            int from = pos;
+            while (true) {
+                char ch = peek();
+                if (ch == '"') {
+                    String tail = s.substring(from, pos++);
+                    return sb == null ? tail : sb.append(tail).toString();
+                }
+                if (ch != '\\') {
+                    pos++;
+                    continue;
+                }
+                if (sb == null) sb = new StringBuilder();
+                sb.append(s, from, pos);
+                pos++;
+                char escaped = peek();
+                pos++;
+                switch (escaped) {
+                    case 'n' -> sb.append('\n');
+                    case 'r' -> sb.append('\r');
+                    case 't' -> sb.append('\t');
+                    case 'b' -> sb.append('\b');
+                    case 'f' -> sb.append('\f');
+                    case 'u' -> {
+                        if (pos + 4 > s.length()) throw error("truncated \\u escape");
+                        sb.append((char) Integer.parseInt(s.substring(pos, pos + 4), 16));
+                        pos += 4;
+                    }
+                    default -> sb.append(escaped);
+                }
+                from = pos;
+            }
+        }
+
+        /** Skips one value of any type and returns its raw text. */
+        String rawValue() {
+            int from = pos;
+            char ch = peek();
+            if (ch == '"') {
+                string();
+            } else if (ch == '{' || ch == '[') {
+                int depth = 0;
+                do {
+                    ch = peek();
+                    if (ch == '"') {
+                        string();
+                        continue;
+                    }
+                    if (ch == '{' || ch == '[') depth++;
+                    if (ch == '}' || ch == ']') depth--;
+                    pos++;
+                } while (depth > 0);
+            } else {
+                while (pos < s.length() && ",}] \t\r\n".indexOf(s.charAt(pos)) < 0) pos++;
+                if (pos == from) throw error("expected a value");
+            }
+            return s.substring(from, pos);
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException("Invalid JSON at " + pos + ": " + message);
+        }
+    }
+}
@@ -0,0 +1,400 @@
+package com.rothem.tree.textfeature;
+
+import com.rothem.tree.textfeature.data.KeywordExtractionResult;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Reactive-streams stage that extracts keywords from each upstream text with bounded concurrency.
+ *
+ * <p>Upstream demand follows downstream demand: at most {@code maxConcurrency + bufferSize} texts are
+ * requested but not yet delivered downstream at any time, so a slow subscriber stops the publisher
+ * instead of letting results pile up. {@link #queueDepth()} reports how many of them are held.
+ *
+ * <p>Results are delivered in completion order unless {@link Builder#ordered(boolean) ordered} (input
+ * order) or a {@link Builder#sourceKey(Function) source key} (input order within each source, sources
+ * interleaved) is configured. Texts of one source are extracted one at a time.
+ *
+ * <p>A text whose extraction throws yields an empty result, as in
+ * {@link TextFeatureExtractor#extractKeywordsBatch(Iterable)}, and is counted in {@link #failureCount()}.
+ * Upstream errors are passed on after the results already accepted. One subscriber per processor.
+ */
+public final class KeywordExtractionProcessor implements Flow.Processor<String, KeywordExtractionResult> {
+    private final TextFeatureExtractor extractor;
+    private final Executor executor;
+    private final int maxConcurrency;
+    private final int capacity;
+    private final boolean ordered;
+    private final Function<? super String, ?> sourceKey;
+
+    private final Object lock = new Object();
+    private final AtomicInteger wip = new AtomicInteger();
+
+    // guarded by lock
+    private Flow.Subscription upstream;
+    private Flow.Subscriber<? super KeywordExtractionResult> downstream;
+    private long demand;
+    private int outstanding;
+    private int accepted;
+    private int running;
+    private long failures;
+    private long nextSeq;
+    private long nextEmitSeq;
+    private final ArrayDeque<Item> waiting = new ArrayDeque<>();
+    private final Set<Object> busySources = new HashSet<>();
+    private final ArrayDeque<Item> ready = new ArrayDeque<>();
+    private final Map<Long, Item> completed = new HashMap<>();
+    private boolean upstreamDone;
+    private Throwable error;
+    private boolean terminated;
+
+    private KeywordExtractionProcessor(Builder builder) {
+        this.extractor = builder.extractor;
+        this.executor = builder.executor != null ? builder.executor : extractor.batchExecutor();
+        this.maxConcurrency = builder.maxConcurrency > 0 ? builder.maxConcurrency : extractor.poolSize();
+        this.capacity = maxConcurrency + builder.bufferSize;
+        this.ordered = builder.ordered;
+        this.sourceKey = builder.sourceKey;
+    }
+
+    static Builder builder(TextFeatureExtractor extractor) {
+        return new Builder(extractor);
+    }
+
+    /** Texts received from upstream whose results have not been delivered downstream yet. */
+    public int queueDepth() {
+        synchronized (lock) {
+            return accepted;
+        }
+    }
+
+    /** Texts being extracted right now. */
+    public int inFlight() {
+        synchronized (lock) {
+            return running;
+        }
+    }
+
+    /** Texts whose extraction threw and were answered with an empty result. */
+    public long failureCount() {
+        synchronized (lock) {
+            return failures;
+        }
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super KeywordExtractionResult> subscriber) {
+        Objects.requireNonNull(subscriber, "subscriber");
+        synchronized (lock) {
+            if (downstream == null) {
+                downstream = subscriber;
+                subscriber = null;
+            }
+        }
+        if (subscriber != null) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            subscriber.onError(new IllegalStateException("KeywordExtractionProcessor supports a single subscriber"));
+            return;
+        }
+        downstream.onSubscribe(new Downstream());
+        drain();
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        Objects.requireNonNull(subscription, "subscription");
+        synchronized (lock) {
+            if (upstream == null && !terminated) {
+                upstream = subscription;
+                subscription = null;
+            }
+        }
+        if (subscription != null) {
+            subscription.cancel();
+            return;
+        }
+        drain();
+    }
+
+    @Override
+    public void onNext(String text) {
+        Objects.requireNonNull(text, "text");
+        synchronized (lock) {
+            if (terminated) return;
+            outstanding = Math.max(0, outstanding - 1);
+            accepted++;
+            Object source = sourceKey == null ? null : sourceKey.apply(text);
+            waiting.addLast(new Item(nextSeq++, text, source));
+        }
+        drain();
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        Objects.requireNonNull(throwable, "throwable");
+        synchronized (lock) {
+            if (upstreamDone) return;
+            upstreamDone = true;
+            error = throwable;
+        }
+        drain();
+    }
+
+    @Override
+    public void onComplete() {
+        synchronized (lock) {
+            upstreamDone = true;
+        }
+        drain();
+    }
+
+    private void extract(Item item) {
+        try {
+            complete(item, extractor.extractKeywords(item.text), false);
+        } catch (Exception | StackOverflowError e) {
+            complete(item, new KeywordExtractionResult(Collections.emptyList(), Collections.emptyMap()), true);
+        }
+    }
+
+    private void complete(Item item, KeywordExtractionResult result, boolean failed) {
+        synchronized (lock) {
+            item.result = result;
+            if (failed) failures++;
+            running--;
+            if (sourceKey != null) busySources.remove(item.source);
+            if (ordered) {
+                completed.put(item.seq, item);
+            } else {
+                ready.addLast(item);
+            }
+        }
+        drain();
+    }
+
+    /**
+     * Starts extractions, delivers results and requests more input. Only one thread runs the loop at a time,
+     * so downstream signals are serialized; other threads just mark that another pass is needed.
+     */
+    private void drain() {
+        if (wip.getAndIncrement() != 0) return;
+        int missed = 1;
+        do {
+            startExtractions();
+            deliverResults();
+            requestUpstream();
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private void startExtractions() {
+        while (true) {
+            Item next;
+            synchronized (lock) {
+                if (terminated || running >= maxConcurrency) return;
+                next = takeStartable();
+                if (next == null) return;
+                running++;
+            }
+            try {
+                executor.execute(() -> extract(next));
+            } catch (RuntimeException e) {
+                // the executor refused (e.g. it was shut down); answer the text like any failed extraction
+                complete(next, new KeywordExtractionResult(Collections.emptyList(), Collections.emptyMap()), true);
+            }
+        }
+    }
+
+    private Item takeStartable() {
+        if (sourceKey == null) return waiting.pollFirst();
+        for (Iterator<Item> it = waiting.iterator(); it.hasNext(); ) {
+            Item item = it.next();
+            if (busySources.add(item.source)) {
+                it.remove();
+                return item;
+            }
+        }
+        return null;
+    }
+
+    private void deliverResults() {
+        while (true) {
+            Flow.Subscriber<? super KeywordExtractionResult> subscriber;
+            KeywordExtractionResult result;
+            Throwable terminalError = null;
+            boolean complete = false;
+            synchronized (lock) {
+                subscriber = downstream;
+                if (terminated || subscriber == null) return;
+                Item item = demand > 0 ? pollReady() : null;
+                if (item != null) {
+                    demand--;
+                    accepted--;
+                    result = item.result;
+                } else if (upstreamDone && accepted == 0) {
+                    terminated = true;
+                    terminalError = error;
+                    complete = true;
+                    result = null;
+                } else {
+                    return;
+                }
+            }
+            if (!complete) {
+                subscriber.onNext(result);
+            } else if (terminalError != null) {
+                subscriber.onError(terminalError);
+                return;
+            } else {
+                subscriber.onComplete();
+                return;
+            }
+        }
+    }
+
+    private Item pollReady() {
+        if (!ordered) return ready.pollFirst();
+        Item item = completed.remove(nextEmitSeq);
+        if (item != null) nextEmitSeq++;
+        return item;
+    }
+
+    private void requestUpstream() {
+        Flow.Subscription subscription;
+        int n;
+        synchronized (lock) {
+            if (terminated || upstreamDone || upstream == null) return;
+            n = capacity - accepted - outstanding;
+            if (n <= 0) return;
+            outstanding += n;
+            subscription = upstream;
+        }
+        subscription.request(n);
+    }
+
+    private void terminate(Throwable cause) {
+        Flow.Subscription subscription;
+        Flow.Subscriber<? super KeywordExtractionResult> subscriber;
+        synchronized (lock) {
+            if (terminated) return;
+            terminated = true;
+            subscription = upstream;
+            subscriber = downstream;
+            waiting.clear();
+            ready.clear();
+            completed.clear();
+            accepted = 0;
+        }
+        if (subscription != null) subscription.cancel();
+        if (cause != null && subscriber != null) subscriber.onError(cause);
+    }
+
+    private final class Downstream implements Flow.Subscription {
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                terminate(new IllegalArgumentException("Non-positive request: " + n));
+                return;
+            }
+            synchronized (lock) {
+                long sum = demand + n;
+                demand = sum < 0 ? Long.MAX_VALUE : sum;
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            terminate(null);
+        }
+    }
+
+    private static final class Item {
+        final long seq;
+        final String text;
+        final Object source;
+        KeywordExtractionResult result;
+
+        Item(long seq, String text, Object source) {
+            this.seq = seq;
+            this.text = text;
+            this.source = source;
+        }
+    }
+
+    public static final class Builder {
+        private final TextFeatureExtractor extractor;
+        private Executor executor;
+        private int maxConcurrency;
+        private int bufferSize = Flow.defaultBufferSize();
+        private boolean ordered;
+        private Function<? super String, ?> sourceKey;
+
+        private Builder(TextFeatureExtractor extractor) {
+            this.extractor = Objects.requireNonNull(extractor, "extractor");
+        }
+
+        /** Runs the extractions. Defaults to the extractor's batch executor. */
+        public Builder executor(Executor executor) {
+            this.executor = Objects.requireNonNull(executor, "executor");
+            return this;
+        }
+
+        /** Extractions running at once. Defaults to the extractor's analyzer pool size. */
+        public Builder maxConcurrency(int maxConcurrency) {
+            if (maxConcurrency < 1) throw new IllegalArgumentException("maxConcurrency must be positive: " + maxConcurrency);
+            this.maxConcurrency = maxConcurrency;
+            return this;
+        }
+
+        /**
+         * Texts held beyond the running ones, waiting to start or for downstream demand.
+         * Defaults to {@link Flow#defaultBufferSize()}.
+         */
+        public Builder bufferSize(int bufferSize) {
+            if (bufferSize < 0) throw new IllegalArgumentException("bufferSize must not be negative: " + bufferSize);
+            this.bufferSize = bufferSize;
+            return this;
+        }
+
+        /**
+         * Delivers results in input order. A slow text then holds back the results after it, and the buffer
+         * should be large enough to keep the other workers busy meanwhile. Off by default.
+         */
+        public Builder ordered(boolean ordered) {
+            this.ordered = ordered;
+            return this;
+        }
+
+        /**
+         * Keeps input order among texts with equal keys (e.g. a channel or mailbox id parsed from the message)
+         * by extracting them one at a time; texts of different sources still run concurrently.
+         */
+        public Builder sourceKey(Function<? super String, ?> sourceKey) {
+            this.sourceKey = Objects.requireNonNull(sourceKey, "sourceKey");
+            return this;
+        }
+
+        public KeywordExtractionProcessor build() {
+            return new KeywordExtractionProcessor(this);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.rothem.tree.textfeature;
+
+import com.rothem.tree.textfeature.data.RankedKeyword;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+
+/**
+ * Scores nouns against a {@link DocumentFrequencyTable}. Immutable and thread-safe.
+ *
+ * <ul>
+ *   <li>{@link Scheme#TF_IDF}: {@code tf * (1 + ln((N + 1) / (df + 1)))}</li>
+ *   <li>{@link Scheme#BM25}: {@code idf * tf * (k1 + 1) / (tf + k1 * (1 - b + b * dl / avgdl))} with
+ *       {@code idf = ln(1 + (N - df + 0.5) / (df + 0.5))}, where {@code dl} counts the distinct nouns in the text,
+ *       as {@link DocumentFrequencyTableBuilder} counts the corpus documents behind {@code avgdl}</li>
+ * </ul>
+ *
+ * @see TextFeatureExtractor#rankKeywords(String, KeywordRanker, int)
+ */
+public final class KeywordRanker {
+    public enum Scheme {
+        TF_IDF,
+        BM25
+    }
+
+    private final DocumentFrequencyTable table;
+    private final Scheme scheme;
+    private final double k1;
+    private final double b;
+
+    private KeywordRanker(Builder builder) {
+        this.table = Objects.requireNonNull(builder.table, "table");
+        this.scheme = builder.scheme;
+        this.k1 = builder.k1;
+        this.b = builder.b;
+    }
+
+    public static Builder builder(DocumentFrequencyTable table) {
+        return new Builder(table);
+    }
+
+    /**
+     * @param nouns   nouns in first-occurrence order
+     * @param repeats occurrences beyond the first, by noun
+     */
+    List<RankedKeyword> rank(Collection<String> nouns, Map<String, Integer> repeats, int topK) {
+        int documentLength = nouns.size();
+        double n = table.documentCount();
+        double averageLength = table.averageDocumentLength() > 0 ? table.averageDocumentLength() : documentLength;
+
+        // min-heap on score; among equal scores the later noun is evicted first
+        PriorityQueue<Candidate> best = new PriorityQueue<>(topK + 1, (x, y) -> {
+            int byScore = Double.compare(x.score, y.score);
+            return byScore != 0 ? byScore : Integer.compare(y.order, x.order);
+        });
+        int order = 0;
+        for (String noun : nouns) {
+            int tf = 1 + repeats.getOrDefault(noun, 0);
+            int df = table.documentFrequency(noun);
+            double score = switch (scheme) {
+                case TF_IDF -> tf * (1 + Math.log((n + 1) / (df + 1)));
+                case BM25 -> Math.log(1 + (n - df + 0.5) / (df + 0.5))
+                        * tf * (k1 + 1) / (tf + k1 * (1 - b + b * documentLength / averageLength));
+            };
+            best.add(new Candidate(new RankedKeyword(noun, score, tf, df), score, order++));
+            if (best.size() > topK) best.poll();
+        }
+
+        List<RankedKeyword> ranked = new ArrayList<>(best.size());
+        while (!best.isEmpty()) ranked.add(best.poll().keyword);
+        Collections.reverse(ranked);
+        return ranked;
+    }
+
+    private record Candidate(RankedKeyword keyword, double score, int order) {
+    }
+
+    public static final class Builder {
+        private final DocumentFrequencyTable table;
+        private Scheme scheme = Scheme.BM25;
+        private double k1 = 1.2;
+        private double b = 0.75;
+
+        private Builder(DocumentFrequencyTable table) {
+            this.table = table;
+        }
+
+        /** Defaults to {@link Scheme#BM25}. */
+        public Builder scheme(Scheme scheme) {
+            this.scheme = Objects.requireNonNull(scheme, "scheme");
+            return this;
+        }
+
+        /** BM25 term frequency saturation. Defaults to 1.2. */
+        public Builder k1(double k1) {
+            if (k1 < 0) throw new IllegalArgumentException("k1 must not be negative: " + k1);
+            this.k1 = k1;
+            return this;
+        }
+
+        /** BM25 document length normalization, from 0 (none) to 1 (full). Defaults to 0.75. */
+        public Builder b(double b) {
+            if (b < 0 || b > 1) throw new IllegalArgumentException("b must be between 0 and 1: " + b);
+            this.b = b;
+            return this;
+        }
+
+        public KeywordRanker build() {
+            return new KeywordRanker(this);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.rothem.tree.textfeature;
+
+/**
+ * Receives keywords as they are extracted, without intermediate result collections.
+ * Offsets are {@code [start, end)} character offsets; {@code -1} means the noun could not be located
+ * in the input (e.g. a filename token that only exists after normalization).
+ */
+public interface KeywordSink {
+
+    void noun(String noun, long start, long end);
+
+    void regexMatch(RegexExtractorKey key, String value, long start, long end);
+
+    /**
+     * Called after the keywords of an input (a chunk, when streaming) whose {@code [start, end)} part exceeded
+     * the extractor's size or time budget and was tokenized without KOMORAN. Defaults to a no-op.
+     */
+    default void degraded(long start, long end) {
+    }
+}
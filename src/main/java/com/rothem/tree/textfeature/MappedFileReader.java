@@ -0,0 +1,92 @@
+package com.rothem.tree.textfeature;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Decodes a file through read-only memory-mapped windows instead of heap buffers.
+ * Only one window is mapped at a time, so files of any size can be read.
+ */
+final class MappedFileReader extends Reader {
+    private static final long WINDOW_BYTES = 64L * 1024 * 1024;
+
+    private final long windowBytes;
+    private final FileChannel channel;
+    private final long size;
+    private final CharsetDecoder decoder;
+    private long windowStart;
+    private MappedByteBuffer window;
+    private final CharBuffer pending = CharBuffer.allocate(2).flip();
+    private boolean finished;
+
+    MappedFileReader(Path path, Charset charset) throws IOException {
+        this(path, charset, WINDOW_BYTES);
+    }
+
+    MappedFileReader(Path path, Charset charset, long windowBytes) throws IOException {
+        this.windowBytes = windowBytes;
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.size = channel.size();
+        this.decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+        if (len == 0) return 0;
+        if (pending.hasRemaining()) {
+            cbuf[off] = pending.get();
+            return 1;
+        }
+        CharBuffer out = CharBuffer.wrap(cbuf, off, len);
+
+        while (out.position() == off) {
+            if (window == null) {
+                if (finished) return -1;
+                if (windowStart >= size) {
+                    // flush requires a decode with endOfInput first, which an empty file never gets to
+                    if (size == 0) decoder.decode(ByteBuffer.allocate(0), out, true);
+                    decoder.flush(out);
+                    finished = true;
+                    continue;
+                }
+                window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, Math.min(windowBytes, size - windowStart));
+            }
+
+            boolean lastWindow = windowStart + window.capacity() >= size;
+            CoderResult result = decoder.decode(window, out, lastWindow);
+            if (result.isError()) result.throwException();
+            if (result.isOverflow() && out.position() == off) {
+                // a surrogate pair does not fit into a one-char request; hand out the low half next time
+                pending.clear();
+                decoder.decode(window, pending, lastWindow);
+                pending.flip();
+                cbuf[off] = pending.get();
+                return 1;
+            }
+            if (result.isUnderflow()) {
+                // a multi-byte sequence cut by the window edge is re-read at the start of the next window
+                windowStart = lastWindow ? size : windowStart + window.position();
+                window = null;
+            }
+        }
+        return out.position() - off;
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        channel.close();
+    }
+}
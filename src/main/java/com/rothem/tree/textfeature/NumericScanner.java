@@ -0,0 +1,296 @@
+package com.rothem.tree.textfeature;
+
+import java.util.Arrays;
+
+/**
+ * Hand-written matcher for the numeric {@link RegexExtractorKey}s (everything but URL and EMAIL).
+ *
+ * <p>The text is walked once to collect the start of every digit group (a digit not preceded by a digit)
+ * and every {@code '+'} that can open an international number; every numeric pattern can only match
+ * there. Each key then tries those candidates in order with a matcher that follows the backtracking
+ * order of the pattern it replaces, so {@link #find} returns exactly what {@code Matcher.find} did:
+ * <pre>
+ * SHORT_DATE_6  (?&lt;!\d)(\d{6})(?!\d)
+ * DATE          (?&lt;!\d)((?:19|20)\d{2})[./-](0?[1-9]|1[0-2])[./-](0?[1-9]|[12][0-9]|3[01])(?!\d)
+ * PHONE_KR      (?&lt;!\d)(?:0\d{1,2}[-\s]?\d{3,4}[-\s]?\d{4})(?!\d)
+ * PHONE_INTL    (?&lt;!\d)(?:\+\d{1,3}[-\s]?(?:\d{1,4}[-\s]?){2,4}\d{2,4})(?!\d)
+ * ACCOUNT       (?&lt;!\d)(?:\d{2,4}[-\s‒]?){2,3}\d{5,6}(?!\d)
+ * NUMBER        (?&lt;!\d)((?:\d{1,3}(?:,\d{3})+)(?:\.\d+)?|\d+\.\d+|\d+)(?!\d)
+ * </pre>
+ * {@code \d} and {@code \s} are ASCII-only, as in {@code java.util.regex} without {@code UNICODE_CHARACTER_CLASS}.
+ */
+final class NumericScanner {
+    static final NumericScanner NONE = new NumericScanner("", new int[0], new int[0]);
+
+    private final String text;
+    private final int[] groupStarts;
+    private final int[] plusStarts;
+
+    private NumericScanner(String text, int[] groupStarts, int[] plusStarts) {
+        this.text = text;
+        this.groupStarts = groupStarts;
+        this.plusStarts = plusStarts;
+    }
+
+    /** Returns a scanner over {@code text}, or {@link #NONE} when it has no digit at all. */
+    static NumericScanner of(String text) {
+        int[] groups = new int[8];
+        int groupCount = 0;
+        int[] pluses = new int[2];
+        int plusCount = 0;
+
+        boolean previousDigit = false;
+        for (int i = 0, n = text.length(); i < n; i++) {
+            char c = text.charAt(i);
+            boolean digit = isDigit(c);
+            if (digit && !previousDigit) {
+                if (groupCount == groups.length) groups = Arrays.copyOf(groups, groupCount * 2);
+                groups[groupCount++] = i;
+            } else if (c == '+' && !previousDigit && i + 1 < n && isDigit(text.charAt(i + 1))) {
+                if (plusCount == pluses.length) pluses = Arrays.copyOf(pluses, plusCount * 2);
+                pluses[plusCount++] = i;
+            }
+            previousDigit = digit;
+        }
+        if (groupCount == 0) return NONE;
+        return new NumericScanner(text, Arrays.copyOf(groups, groupCount), Arrays.copyOf(pluses, plusCount));
+    }
+
+    /**
+     * Finds the first match of {@code key} starting at or after {@code from}.
+     *
+     * @return {@code start << 32 | end}, or {@code -1} when there is none
+     */
+    long find(RegexExtractorKey key, int from) {
+        int[] candidates = key == RegexExtractorKey.PHONE_INTL ? plusStarts : groupStarts;
+        for (int i = firstAtOrAfter(candidates, from); i < candidates.length; i++) {
+            int start = candidates[i];
+            int end = switch (key) {
+                case SHORT_DATE_6 -> digitRun(start) == 6 ? start + 6 : -1;
+                case DATE -> date(start);
+                case PHONE_KR -> phoneKr(start);
+                case PHONE_INTL -> phoneIntl(start);
+                case ACCOUNT -> accountGroups(start, 0);
+                case NUMBER -> number(start);
+                default -> throw new IllegalArgumentException("Not a numeric key: " + key);
+            };
+            if (end >= 0) return (long) start << 32 | end;
+        }
+        return -1;
+    }
+
+    /** Checks that the six digits at {@code start} are a valid yyMMdd date (00-49 is 20xx, 50-99 is 19xx). */
+    static boolean isValidShortDate6(String text, int start) {
+        int yy = twoDigits(text, start);
+        int month = twoDigits(text, start + 2);
+        int day = twoDigits(text, start + 4);
+        int year = yy <= 49 ? 2000 + yy : 1900 + yy;
+        return month >= 1 && month <= 12 && day >= 1 && day <= lengthOfMonth(year, month);
+    }
+
+    /**
+     * Checks a DATE match. The month and day are already range-limited by the pattern; a day past the end of
+     * its month (e.g. 2023-02-30) has always been accepted, since the lenient parser this replaces clamped it.
+     */
+    static boolean isValidDate(String text, int start, int end) {
+        int p = start + 5;
+        int month = 0;
+        while (isDigit(text.charAt(p))) month = month * 10 + text.charAt(p++) - '0';
+        p++;
+        int day = 0;
+        while (p < end) day = day * 10 + text.charAt(p++) - '0';
+        return month >= 1 && month <= 12 && day >= 1 && day <= 31;
+    }
+
+    private int date(int s) {
+        if (!digits(s, 4)) return -1;
+        char c0 = text.charAt(s);
+        char c1 = text.charAt(s + 1);
+        if (!(c0 == '1' && c1 == '9' || c0 == '2' && c1 == '0')) return -1;
+        int p = s + 4;
+        if (!isDateSeparator(charAt(p))) return -1;
+        p++;
+
+        // alternatives in pattern order: 0?[1-9] (with the 0, then without) | 1[0-2]
+        for (int month = 0; month < 3; month++) {
+            int monthLength = switch (month) {
+                case 0 -> charAt(p) == '0' && isNonZeroDigit(charAt(p + 1)) ? 2 : -1;
+                case 1 -> isNonZeroDigit(charAt(p)) ? 1 : -1;
+                default -> charAt(p) == '1' && charAt(p + 1) >= '0' && charAt(p + 1) <= '2' ? 2 : -1;
+            };
+            if (monthLength < 0) continue;
+            int q = p + monthLength;
+            if (!isDateSeparator(charAt(q))) continue;
+            q++;
+
+            // 0?[1-9] (with the 0, then without) | [12][0-9] | 3[01]
+            for (int day = 0; day < 4; day++) {
+                int dayLength = switch (day) {
+                    case 0 -> charAt(q) == '0' && isNonZeroDigit(charAt(q + 1)) ? 2 : -1;
+                    case 1 -> isNonZeroDigit(charAt(q)) ? 1 : -1;
+                    case 2 -> (charAt(q) == '1' || charAt(q) == '2') && isDigit(charAt(q + 1)) ? 2 : -1;
+                    default -> charAt(q) == '3' && (charAt(q + 1) == '0' || charAt(q + 1) == '1') ? 2 : -1;
+                };
+                if (dayLength >= 0 && !isDigit(charAt(q + dayLength))) return q + dayLength;
+            }
+        }
+        return -1;
+    }
+
+    private int phoneKr(int s) {
+        if (charAt(s) != '0') return -1;
+        int p0 = s + 1;
+        for (int area = 2; area >= 1; area--) {
+            if (!digits(p0, area)) continue;
+            int p1 = p0 + area;
+            for (int sep1 = 1; sep1 >= 0; sep1--) {
+                if (sep1 == 1 && !isPhoneSeparator(charAt(p1))) continue;
+                int p2 = p1 + sep1;
+                for (int middle = 4; middle >= 3; middle--) {
+                    if (!digits(p2, middle)) continue;
+                    int p3 = p2 + middle;
+                    for (int sep2 = 1; sep2 >= 0; sep2--) {
+                        if (sep2 == 1 && !isPhoneSeparator(charAt(p3))) continue;
+                        int p4 = p3 + sep2;
+                        if (digits(p4, 4) && !isDigit(charAt(p4 + 4))) return p4 + 4;
+                    }
+                }
+            }
+        }
+        return -1;
+    }
+
+    private int phoneIntl(int s) {
+        int p = s + 1;
+        for (int country = 3; country >= 1; country--) {
+            if (!digits(p, country)) continue;
+            int q = p + country;
+            for (int sep = 1; sep >= 0; sep--) {
+                if (sep == 1 && !isPhoneSeparator(charAt(q))) continue;
+                int end = intlGroups(q + sep, 0);
+                if (end >= 0) return end;
+            }
+        }
+        return -1;
+    }
+
+    // (?:\d{1,4}[-\s]?){2,4}\d{2,4}(?!\d): greedy, so another group is tried before the tail
+    private int intlGroups(int p, int groups) {
+        if (groups < 4) {
+            for (int length = 4; length >= 1; length--) {
+                if (!digits(p, length)) continue;
+                int q = p + length;
+                for (int sep = 1; sep >= 0; sep--) {
+                    if (sep == 1 && !isPhoneSeparator(charAt(q))) continue;
+                    int end = intlGroups(q + sep, groups + 1);
+                    if (end >= 0) return end;
+                }
+            }
+        }
+        if (groups >= 2) {
+            for (int length = 4; length >= 2; length--) {
+                if (digits(p, length) && !isDigit(charAt(p + length))) return p + length;
+            }
+        }
+        return -1;
+    }
+
+    // (?:\d{2,4}[-\s‒]?){2,3}\d{5,6}(?!\d)
+    private int accountGroups(int p, int groups) {
+        if (groups < 3) {
+            for (int length = 4; length >= 2; length--) {
+                if (!digits(p, length)) continue;
+                int q = p + length;
+                for (int sep = 1; sep >= 0; sep--) {
+                    if (sep == 1 && !isAccountSeparator(charAt(q))) continue;
+                    int end = accountGroups(q + sep, groups + 1);
+                    if (end >= 0) return end;
+                }
+            }
+        }
+        if (groups >= 2) {
+            for (int length = 6; length >= 5; length--) {
+                if (digits(p, length) && !isDigit(charAt(p + length))) return p + length;
+            }
+        }
+        return -1;
+    }
+
+    private int number(int s) {
+        int run = digitRun(s);
+
+        // \d{1,3}(?:,\d{3})+(?:\.\d+)? — only the whole leading run can be followed by ','
+        if (run <= 3 && charAt(s + run) == ',') {
+            int p = s + run;
+            int groups = 0;
+            while (charAt(p + 4 * groups) == ',' && digits(p + 4 * groups + 1, 3)) groups++;
+            for (int g = groups; g >= 1; g--) {
+                int q = p + 4 * g;
+                if (charAt(q) == '.' && isDigit(charAt(q + 1))) return q + 1 + digitRun(q + 1);
+                if (!isDigit(charAt(q))) return q;
+            }
+        }
+        // \d+\.\d+
+        int dot = s + run;
+        if (charAt(dot) == '.' && isDigit(charAt(dot + 1))) return dot + 1 + digitRun(dot + 1);
+        // \d+
+        return s + run;
+    }
+
+    private int digitRun(int p) {
+        int q = p;
+        while (isDigit(charAt(q))) q++;
+        return q - p;
+    }
+
+    private boolean digits(int p, int count) {
+        if (p + count > text.length()) return false;
+        for (int i = p; i < p + count; i++) {
+            if (!isDigit(text.charAt(i))) return false;
+        }
+        return true;
+    }
+
+    private char charAt(int p) {
+        return p < text.length() ? text.charAt(p) : '\0';
+    }
+
+    private static int firstAtOrAfter(int[] sorted, int from) {
+        int i = Arrays.binarySearch(sorted, from);
+        return i >= 0 ? i : -i - 1;
+    }
+
+    private static int twoDigits(String text, int p) {
+        return (text.charAt(p) - '0') * 10 + text.charAt(p + 1) - '0';
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        return switch (month) {
+            case 2 -> (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+            case 4, 6, 9, 11 -> 30;
+            default -> 31;
+        };
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isNonZeroDigit(char c) {
+        return c >= '1' && c <= '9';
+    }
+
+    private static boolean isDateSeparator(char c) {
+        return c == '.' || c == '/' || c == '-';
+    }
+
+    // [-\s]
+    private static boolean isPhoneSeparator(char c) {
+        return c == '-' || c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    // [-\s‒]
+    private static boolean isAccountSeparator(char c) {
+        return isPhoneSeparator(c) || c == '‒';
+    }
+}
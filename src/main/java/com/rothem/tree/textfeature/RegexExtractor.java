@@ -1,110 +1,144 @@
 package com.rothem.tree.textfeature;
 
-import java.time.DateTimeException;
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
+import com.rothem.tree.textfeature.data.RegexScanResult;
+
 import java.util.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 public class RegexExtractor {
 
-    private static final Map<RegexExtractorKey, Pattern> PATTERNS = new LinkedHashMap<>();
+    // the numeric keys are matched by NumericScanner, which documents the patterns it replaces
+    private static final Map<RegexExtractorKey, Pattern> PATTERNS = new EnumMap<>(RegexExtractorKey.class);
 
     static {
-        PATTERNS.put(RegexExtractorKey.SHORT_DATE_6, Pattern.compile("(?<!\\d)(\\d{6})(?!\\d)"));
         PATTERNS.put(RegexExtractorKey.URL, Pattern.compile(
                 "(?:(?:https?|ftp)://[\\w\\-.\\u3131-\\uD79D@]+(?:/[\\w\\-./?&=#%:+~\\u3131-\\uD79D@]*)?)",
                 Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE));
         PATTERNS.put(RegexExtractorKey.EMAIL, Pattern.compile(
                 "(?<![/\\w])[a-zA-Z0-9._%+-]+@[a-zA-Z0-9.-]+\\.[a-zA-Z]{2,}(?![/\\w])"));
-        PATTERNS.put(RegexExtractorKey.DATE, Pattern.compile(
-                "(?<!\\d)((?:19|20)\\d{2})[./-](0?[1-9]|1[0-2])[./-](0?[1-9]|[12][0-9]|3[01])(?!\\d)"
-        ));
-        PATTERNS.put(RegexExtractorKey.PHONE_KR, Pattern.compile(
-                "(?<!\\d)(?:0\\d{1,2}[-\\s]?\\d{3,4}[-\\s]?\\d{4})(?!\\d)"
-        ));
-        PATTERNS.put(RegexExtractorKey.PHONE_INTL, Pattern.compile(
-                "(?<!\\d)(?:\\+\\d{1,3}[-\\s]?(?:\\d{1,4}[-\\s]?){2,4}\\d{2,4})(?!\\d)"
-        ));
-        PATTERNS.put(RegexExtractorKey.ACCOUNT, Pattern.compile(
-                "(?<!\\d)(?:\\d{2,4}[-\\s‒]?){2,3}\\d{5,6}(?!\\d)"));
-        PATTERNS.put(RegexExtractorKey.NUMBER, Pattern.compile(
-                "(?<!\\d)((?:\\d{1,3}(?:,\\d{3})+)(?:\\.\\d+)?|\\d+\\.\\d+|\\d+)(?!\\d)"));
     }
 
+    private static final Set<RegexExtractorKey> CONTAINMENT_CHECKED_KEYS = EnumSet.of(
+            RegexExtractorKey.NUMBER, RegexExtractorKey.PHONE_KR, RegexExtractorKey.PHONE_INTL, RegexExtractorKey.ACCOUNT);
+
     public static Map<String, List<String>> extractRegexMatches(String text) {
+        return scan(text).getMatches();
+    }
+
+    public static List<int[]> getOccupiedSpans(String text) {
+        return scan(text).getOccupiedSpans();
+    }
+
+    /**
+     * Runs every key once, in {@link RegexExtractorKey} order, and collects both the accepted matches
+     * and the occupied spans.
+     * Occupied spans are the raw matches of every key except NUMBER, before date validation
+     * and containment filtering, so they line up with what noun extraction has always skipped.
+     * The numeric keys are skipped outright when the text has no digit.
+     */
+    public static RegexScanResult scan(String text) {
+        return scan(text, ExtractionOptions.ALL);
+    }
+
+    /**
+     * Same pass as {@link #scan(String)}, limited to what {@code options} needs. Every key is present in the
+     * result; keys outside {@link ExtractionOptions#regexKeys()} have no matches. Occupied spans are only
+     * collected when the options extract nouns.
+     */
+    static RegexScanResult scan(String text, ExtractionOptions options) {
         Map<String, List<String>> result = new LinkedHashMap<>();
+        Map<String, List<int[]>> resultSpans = new LinkedHashMap<>();
+        for (RegexExtractorKey key : RegexExtractorKey.values()) {
+            result.put(key.keyName(), new ArrayList<>());
+            resultSpans.put(key.keyName(), new ArrayList<>());
+        }
+        List<int[]> occupiedSpans = scan(text, options, (key, start, end) -> {
+            result.get(key.keyName()).add(text.substring(start, end));
+            resultSpans.get(key.keyName()).add(new int[]{start, end});
+        });
+        return new RegexScanResult(result, resultSpans, occupiedSpans);
+    }
+
+    /** Receives the accepted matches of one scan, in key order and, within a key, in text order. */
+    interface MatchVisitor {
+        void match(RegexExtractorKey key, int start, int end);
+    }
+
+    /**
+     * Same pass as {@link #scan(String, ExtractionOptions)}, but hands each accepted match of a selected key
+     * to {@code visitor} instead of collecting it, and returns only the occupied spans.
+     */
+    static List<int[]> scan(String text, ExtractionOptions options, MatchVisitor visitor) {
+        Set<RegexExtractorKey> scanKeys = options.scanKeys();
+        Set<RegexExtractorKey> reported = options.regexKeys();
+        boolean collectOccupied = options.nouns();
+        List<int[]> acceptedSpans = new ArrayList<>();
+        SpanIndex accepted = SpanIndex.EMPTY;
         List<int[]> occupiedSpans = new ArrayList<>();
+        NumericScanner numbers = null;
 
-        for (RegexExtractorKey key : PATTERNS.keySet()) {
+        for (RegexExtractorKey key : RegexExtractorKey.values()) {
+            if (!scanKeys.contains(key)) continue;
             Pattern pattern = PATTERNS.get(key);
-            Matcher matcher = pattern.matcher(text);
-            List<String> matches = new ArrayList<>();
+            if (pattern == null && numbers == null) numbers = NumericScanner.of(text);
+            Matcher matcher = pattern == null ? null : pattern.matcher(text);
+            boolean matched = false;
+
+            int from = 0;
+            while (true) {
+                int start;
+                int end;
+                if (matcher != null) {
+                    if (!matcher.find()) break;
+                    start = matcher.start();
+                    end = matcher.end();
+                } else {
+                    long found = numbers.find(key, from);
+                    if (found < 0) break;
+                    start = (int) (found >>> 32);
+                    end = (int) found;
+                    from = end;
+                }
 
-            while (matcher.find()) {
-                int start = matcher.start();
-                int end = matcher.end();
-                String matched = matcher.group();
+                if (collectOccupied && key != RegexExtractorKey.NUMBER) {
+                    occupiedSpans.add(new int[]{start, end});
+                }
 
-                if (key == RegexExtractorKey.SHORT_DATE_6 && !isValidShortDate6(matched)) continue;
-                if (key == RegexExtractorKey.DATE && !isValidDate(matched)) continue;
+                if (key == RegexExtractorKey.SHORT_DATE_6 && !NumericScanner.isValidShortDate6(text, start)) continue;
+                if (key == RegexExtractorKey.DATE && !NumericScanner.isValidDate(text, start, end)) continue;
 
-                if (Set.of(RegexExtractorKey.NUMBER, RegexExtractorKey.PHONE_KR, RegexExtractorKey.PHONE_INTL, RegexExtractorKey.ACCOUNT).contains(key)) {
-                    if (isInside(start, end, occupiedSpans)) continue;
+                // matches of one key never overlap, so only spans accepted for earlier keys can contain this one
+                if (CONTAINMENT_CHECKED_KEYS.contains(key)) {
+                    if (accepted.contains(start, end)) continue;
                 }
 
-                matches.add(matched);
-                occupiedSpans.add(new int[]{start, end});
+                acceptedSpans.add(new int[]{start, end});
+                if (reported.contains(key)) visitor.match(key, start, end);
+                matched = true;
             }
 
-            result.put(key.keyName(), matches);
-        }
-
-        return result;
-    }
-
-    public static List<int[]> getOccupiedSpans(String text) {
-        List<int[]> spans = new ArrayList<>();
-        for (RegexExtractorKey key : PATTERNS.keySet()) {
-            if (key == RegexExtractorKey.NUMBER) continue;
-            Matcher matcher = PATTERNS.get(key).matcher(text);
-            while (matcher.find()) {
-                spans.add(new int[]{matcher.start(), matcher.end()});
+            if (matched) {
+                accepted = SpanIndex.of(acceptedSpans);
             }
         }
-        return spans;
-    }
-
-    private static boolean isInside(int start, int end, List<int[]> spans) {
-        for (int[] span : spans) {
-            if (start >= span[0] && end <= span[1]) return true;
-        }
-        return false;
-    }
 
-    private static boolean isValidShortDate6(String yymmdd) {
-        if (!yymmdd.matches("\\d{6}")) return false;
-        try {
-            int yy = Integer.parseInt(yymmdd.substring(0, 2));
-            int mm = Integer.parseInt(yymmdd.substring(2, 4));
-            int dd = Integer.parseInt(yymmdd.substring(4, 6));
-
-            int fullYear = (yy >= 0 && yy <= 49) ? 2000 + yy : 1900 + yy;
-            LocalDate.of(fullYear, mm, dd);
-            return true;
-        } catch (DateTimeException | NumberFormatException e) {
-            return false;
-        }
+        return occupiedSpans;
     }
 
-    private static boolean isValidDate(String yyyymmdd) {
-        try {
-            LocalDate.parse(yyyymmdd.replaceAll("[./-]", "-"), DateTimeFormatter.ofPattern("yyyy-M-d"));
-            return true;
-        } catch (DateTimeParseException e) {
-            return false;
+    /**
+     * Keys a scan must run so that the matches of {@code reported} equal a full scan's: the masking keys
+     * (all but NUMBER) when nouns are extracted, and every key before a containment-checked one.
+     */
+    static EnumSet<RegexExtractorKey> keysToScan(Set<RegexExtractorKey> reported, boolean nouns) {
+        EnumSet<RegexExtractorKey> keys = EnumSet.noneOf(RegexExtractorKey.class);
+        keys.addAll(reported);
+        if (nouns) keys.addAll(EnumSet.complementOf(EnumSet.of(RegexExtractorKey.NUMBER)));
+        RegexExtractorKey lastChecked = null;
+        for (RegexExtractorKey key : keys) {
+            if (CONTAINMENT_CHECKED_KEYS.contains(key)) lastChecked = key;
         }
+        if (lastChecked != null) keys.addAll(EnumSet.range(RegexExtractorKey.values()[0], lastChecked));
+        return keys;
     }
 }
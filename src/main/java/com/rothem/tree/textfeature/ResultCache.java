@@ -0,0 +1,131 @@
+package com.rothem.tree.textfeature;
+
+import com.rothem.tree.textfeature.data.CacheStats;
+import com.rothem.tree.textfeature.data.KeywordExtractionResult;
+
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Size-bounded LRU cache of extraction results.
+ * Entries are keyed by the input text and the user dictionary version it was analyzed with,
+ * so a dictionary change makes older entries unreachable; they age out through normal eviction.
+ * The cache is split into independently locked segments to keep contention low.
+ */
+final class ResultCache {
+    /** Longer inputs are rarely repeated verbatim and would pin too much memory. */
+    static final int MAX_CACHED_TEXT_LENGTH = 4096;
+
+    private final Segment[] segments;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    ResultCache(int maxEntries) {
+        if (maxEntries < 1) throw new IllegalArgumentException("maxEntries must be positive: " + maxEntries);
+        segments = new Segment[CacheSegments.count(maxEntries)];
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new Segment(CacheSegments.capacity(maxEntries, segments.length, i));
+        }
+    }
+
+    static boolean isCacheable(String text) {
+        return text.length() <= MAX_CACHED_TEXT_LENGTH;
+    }
+
+    /** Returns a private copy of the cached result, or {@code null} on a miss. */
+    KeywordExtractionResult get(String text, long dictionaryVersion) {
+        Key key = new Key(text, dictionaryVersion);
+        Entry entry = segmentFor(key).get(key);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.toResult();
+    }
+
+    void put(String text, long dictionaryVersion, KeywordExtractionResult result) {
+        Key key = new Key(text, dictionaryVersion);
+        segmentFor(key).put(key, Entry.of(result));
+    }
+
+    CacheStats stats() {
+        long size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), size);
+    }
+
+    private Segment segmentFor(Key key) {
+        return segments[CacheSegments.indexFor(key.hashCode(), segments.length)];
+    }
+
+    private record Key(String text, long dictionaryVersion) {
+    }
+
+    /** Immutable copy of a result; handed out as fresh mutable lists so callers cannot corrupt the cache. */
+    private record Entry(List<String> nouns, Map<String, List<String>> regex,
+                         List<int[]> nounSpans, Map<String, List<int[]>> regexSpans) {
+        static Entry of(KeywordExtractionResult result) {
+            Map<String, List<String>> regex = new LinkedHashMap<>();
+            result.getRegex().forEach((key, values) -> regex.put(key, List.copyOf(values)));
+            Map<String, List<int[]>> regexSpans = null;
+            if (result.getRegexSpans() != null) {
+                regexSpans = new LinkedHashMap<>();
+                for (Map.Entry<String, List<int[]>> spans : result.getRegexSpans().entrySet()) {
+                    regexSpans.put(spans.getKey(), copySpans(spans.getValue()));
+                }
+            }
+            List<int[]> nounSpans = result.getNounSpans() == null ? null : copySpans(result.getNounSpans());
+            return new Entry(List.copyOf(result.getNouns()), regex, nounSpans, regexSpans);
+        }
+
+        KeywordExtractionResult toResult() {
+            Map<String, List<String>> copy = new LinkedHashMap<>();
+            regex.forEach((key, values) -> copy.put(key, new ArrayList<>(values)));
+            if (nounSpans == null) {
+                return new KeywordExtractionResult(new ArrayList<>(nouns), copy);
+            }
+            Map<String, List<int[]>> regexSpansCopy = new LinkedHashMap<>();
+            regexSpans.forEach((key, spans) -> regexSpansCopy.put(key, copySpans(spans)));
+            return new KeywordExtractionResult(new ArrayList<>(nouns), copy, copySpans(nounSpans), regexSpansCopy);
+        }
+
+        private static List<int[]> copySpans(List<int[]> spans) {
+            List<int[]> copy = new ArrayList<>(spans.size());
+            for (int[] span : spans) {
+                copy.add(span.clone());
+            }
+            return copy;
+        }
+    }
+
+    private final class Segment {
+        private final LinkedHashMap<Key, Entry> map;
+
+        Segment(int capacity) {
+            this.map = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                    if (size() <= capacity) return false;
+                    evictions.increment();
+                    return true;
+                }
+            };
+        }
+
+        synchronized Entry get(Key key) {
+            return map.get(key);
+        }
+
+        synchronized void put(Key key, Entry entry) {
+            map.put(key, entry);
+        }
+
+        synchronized int size() {
+            return map.size();
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.rothem.tree.textfeature;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Near-duplicate signature configuration: {@code numHashes} MinHash functions split into {@code bands}
+ * LSH bands, plus a SimHash fingerprint. Every feature (noun or regex value) is hashed once to 64 bits;
+ * the MinHash functions are derived from that hash ({@code h1 + i * h2}, then mixed), so strings are
+ * never re-hashed per function. Immutable and thread-safe.
+ *
+ * <p>With {@code b} bands of {@code r} rows, two documents of Jaccard similarity {@code s} share a band
+ * key with probability {@code 1 - (1 - s^r)^b}.
+ *
+ * @see TextFeatureExtractor#extractSignature(String, SignatureHasher, DocumentSignature)
+ */
+public final class SignatureHasher {
+    private static final long NOUN_SEED = 0x6e6f756e6e6f756eL;
+    private static final long REGEX_SEED = 0x7265676578726567L;
+
+    private final int numHashes;
+    private final int bands;
+
+    private SignatureHasher(Builder builder) {
+        if (builder.numHashes % builder.bands != 0) {
+            throw new IllegalArgumentException("numHashes (" + builder.numHashes + ") must be a multiple of bands ("
+                    + builder.bands + ")");
+        }
+        this.numHashes = builder.numHashes;
+        this.bands = builder.bands;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public int numHashes() {
+        return numHashes;
+    }
+
+    public int bands() {
+        return bands;
+    }
+
+    /**
+     * Fills {@code out} from one document's features. Features are de-duplicated by hash first, so a noun or
+     * regex value that repeats counts once, in the SimHash weights and the feature count as well as in MinHash.
+     *
+     * @param nouns nouns of the document
+     * @param regex regex matches by key name
+     * @throws IllegalArgumentException if {@code out} was created for a hasher of another shape
+     */
+    void signInto(Collection<String> nouns, Map<String, List<String>> regex, DocumentSignature out) {
+        checkFits(out);
+        out.clear();
+        for (String noun : nouns) {
+            out.addFeatureHash(Hashes.hash64(NOUN_SEED, noun));
+        }
+        for (List<String> values : regex.values()) {
+            for (String value : values) {
+                out.addFeatureHash(Hashes.hash64(REGEX_SEED, value));
+            }
+        }
+        int features = out.distinctFeatureHashes();
+        long[] hashes = out.featureHashes();
+        for (int i = 0; i < features; i++) {
+            add(hashes[i], out);
+        }
+
+        int rows = numHashes / bands;
+        int[] minHashes = out.minHashes();
+        long[] bandKeys = out.bandKeys();
+        for (int band = 0; band < bands; band++) {
+            long key = Hashes.mix64(band + 1);
+            for (int row = band * rows; row < (band + 1) * rows; row++) {
+                key = Hashes.mix64(key * 31 + minHashes[row]);
+            }
+            bandKeys[band] = key;
+        }
+
+        int[] weights = out.simHashWeights();
+        long simHash = 0L;
+        for (int bit = 0; bit < Long.SIZE; bit++) {
+            if (weights[bit] > 0) simHash |= 1L << bit;
+        }
+        out.finish(simHash, features);
+    }
+
+    /** Rejects a signature sized for other {@code numHashes} or {@code bands}. */
+    void checkFits(DocumentSignature out) {
+        if (out.minHashes().length != numHashes || out.bandKeys().length != bands) {
+            throw new IllegalArgumentException("signature has " + out.minHashes().length + " hashes in "
+                    + out.bandKeys().length + " bands, but this hasher makes " + numHashes + " in " + bands);
+        }
+    }
+
+    private void add(long hash, DocumentSignature out) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        int[] minHashes = out.minHashes();
+        for (int i = 0; i < numHashes; i++) {
+            int value = Hashes.mix32(h1 + i * h2);
+            if (value < minHashes[i]) minHashes[i] = value;
+        }
+
+        int[] weights = out.simHashWeights();
+        for (int bit = 0; bit < Long.SIZE; bit++) {
+            weights[bit] += (hash >>> bit & 1L) != 0 ? 1 : -1;
+        }
+    }
+
+    public static final class Builder {
+        private int numHashes = 128;
+        private int bands = 32;
+
+        private Builder() {
+        }
+
+        /** Signature length. Defaults to 128. */
+        public Builder numHashes(int numHashes) {
+            if (numHashes < 1) throw new IllegalArgumentException("numHashes must be positive: " + numHashes);
+            this.numHashes = numHashes;
+            return this;
+        }
+
+        /** LSH bands; must divide {@code numHashes}. Defaults to 32 (4 rows each). */
+        public Builder bands(int bands) {
+            if (bands < 1) throw new IllegalArgumentException("bands must be positive: " + bands);
+            this.bands = bands;
+            return this;
+        }
+
+        public SignatureHasher build() {
+            return new SignatureHasher(this);
+        }
+    }
+}
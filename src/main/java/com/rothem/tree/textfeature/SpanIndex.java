@@ -0,0 +1,72 @@
+package com.rothem.tree.textfeature;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Immutable index over {@code [start, end)} spans answering containment queries in O(log n).
+ * Spans are sorted by start and paired with the running maximum end, so "is there a span with
+ * {@code s <= start} and {@code e >= end}" is one binary search. Overlapping spans are allowed.
+ */
+final class SpanIndex {
+    static final SpanIndex EMPTY = new SpanIndex(new int[0], new int[0]);
+
+    private final int[] starts;
+    private final int[] maxEnds;
+
+    private SpanIndex(int[] starts, int[] maxEnds) {
+        this.starts = starts;
+        this.maxEnds = maxEnds;
+    }
+
+    static SpanIndex of(List<int[]> spans) {
+        int n = spans.size();
+        if (n == 0) return EMPTY;
+
+        // sort (start, end) pairs packed into longs; both are non-negative offsets
+        long[] packed = new long[n];
+        for (int i = 0; i < n; i++) {
+            int[] span = spans.get(i);
+            packed[i] = (long) span[0] << 32 | span[1];
+        }
+        Arrays.sort(packed);
+
+        int[] starts = new int[n];
+        int[] maxEnds = new int[n];
+        int maxEnd = Integer.MIN_VALUE;
+        for (int i = 0; i < n; i++) {
+            starts[i] = (int) (packed[i] >>> 32);
+            maxEnd = Math.max(maxEnd, (int) packed[i]);
+            maxEnds[i] = maxEnd;
+        }
+        return new SpanIndex(starts, maxEnds);
+    }
+
+    /** True when {@code pos} falls inside some span. */
+    boolean covers(int pos) {
+        int i = lastStartAtOrBefore(pos);
+        return i >= 0 && maxEnds[i] > pos;
+    }
+
+    /** True when some single span contains the whole of {@code [start, end)}. */
+    boolean contains(int start, int end) {
+        int i = lastStartAtOrBefore(start);
+        return i >= 0 && maxEnds[i] >= end;
+    }
+
+    private int lastStartAtOrBefore(int pos) {
+        int lo = 0;
+        int hi = starts.length - 1;
+        int found = -1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (starts[mid] <= pos) {
+                found = mid;
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return found;
+    }
+}
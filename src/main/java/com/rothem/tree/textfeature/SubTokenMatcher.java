@@ -0,0 +1,317 @@
+package com.rothem.tree.textfeature;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+/**
+ * Aho-Corasick automaton over the user dictionary base words.
+ * Finds every base word contained in a noun in one pass over the noun, independent of dictionary size.
+ * Immutable once built; one instance belongs to one {@link UserDictionarySnapshot}.
+ */
+final class SubTokenMatcher {
+    static final SubTokenMatcher EMPTY = build(List.of(), word -> true);
+
+    interface SubTokenConsumer {
+        void accept(String base, int offset);
+    }
+
+    /** Pattern strings by id: an array when built in memory, UTF-8 decoded on demand when read from a mapped file. */
+    private interface Patterns {
+        int size();
+
+        String get(int id);
+    }
+
+    private final Patterns patterns;
+    private final int[] depth;
+    private final int[] fail;
+    private final int[] outputId;
+    private final int[] outputLink;
+    private final long[] edgeKeys;
+    private final int[] edgeTargets;
+    private final int edgeMask;
+
+    private SubTokenMatcher(Patterns patterns, int[] depth, int[] fail, int[] outputId, int[] outputLink,
+                            long[] edgeKeys, int[] edgeTargets) {
+        this.patterns = patterns;
+        this.depth = depth;
+        this.fail = fail;
+        this.outputId = outputId;
+        this.outputLink = outputLink;
+        this.edgeKeys = edgeKeys;
+        this.edgeTargets = edgeTargets;
+        this.edgeMask = edgeKeys.length - 1;
+    }
+
+    /**
+     * Compiles the words accepted by {@code filter}. Pattern ids follow the collection's iteration order,
+     * which is also the order sub-tokens are reported in.
+     */
+    static SubTokenMatcher build(Collection<String> words, Predicate<String> filter) {
+        String[] patterns = words.stream().filter(w -> !w.isEmpty() && filter.test(w)).toArray(String[]::new);
+
+        int maxStates = 1;
+        for (String p : patterns) maxStates += p.length();
+
+        int edgeCapacity = Integer.highestOneBit(Math.max(2, maxStates * 2 - 1)) << 1;
+        long[] edgeKeys = new long[edgeCapacity];
+        int[] edgeTargets = new int[edgeCapacity];
+        Arrays.fill(edgeKeys, -1L);
+        int edgeMask = edgeCapacity - 1;
+
+        int[] depth = new int[maxStates];
+        int[] outputId = new int[maxStates];
+        Arrays.fill(outputId, -1);
+        int[] parent = new int[maxStates];
+        char[] label = new char[maxStates];
+        int states = 1;
+
+        for (int id = 0; id < patterns.length; id++) {
+            String p = patterns[id];
+            int state = 0;
+            for (int i = 0; i < p.length(); i++) {
+                char c = p.charAt(i);
+                int next = lookup(edgeKeys, edgeTargets, edgeMask, state, c);
+                if (next < 0) {
+                    next = states++;
+                    depth[next] = depth[state] + 1;
+                    parent[next] = state;
+                    label[next] = c;
+                    insert(edgeKeys, edgeTargets, edgeMask, state, c, next);
+                }
+                state = next;
+            }
+            if (outputId[state] < 0) outputId[state] = id;
+        }
+
+        // states are numbered in creation order, not breadth-first; counting-sort them by depth for the fail links
+        int maxDepth = 0;
+        for (int i = 0; i < states; i++) maxDepth = Math.max(maxDepth, depth[i]);
+        int[] depthStart = new int[maxDepth + 2];
+        for (int i = 0; i < states; i++) depthStart[depth[i] + 1]++;
+        for (int d = 1; d < depthStart.length; d++) depthStart[d] += depthStart[d - 1];
+        int[] byDepth = new int[states];
+        for (int i = 0; i < states; i++) byDepth[depthStart[depth[i]]++] = i;
+
+        int[] fail = new int[states];
+        int[] outputLink = new int[states];
+        outputLink[0] = -1;
+        for (int k = 1; k < states; k++) {
+            int s = byDepth[k];
+            int f = fail[parent[s]];
+            int target = -1;
+            if (parent[s] != 0) {
+                while (true) {
+                    target = lookup(edgeKeys, edgeTargets, edgeMask, f, label[s]);
+                    if (target >= 0 || f == 0) break;
+                    f = fail[f];
+                }
+            }
+            fail[s] = target >= 0 ? target : 0;
+            int fs = fail[s];
+            outputLink[s] = outputId[fs] >= 0 ? fs : outputLink[fs];
+        }
+
+        return new SubTokenMatcher(arrayPatterns(patterns), Arrays.copyOf(depth, states), fail,
+                Arrays.copyOf(outputId, states), outputLink, edgeKeys, edgeTargets);
+    }
+
+    boolean isEmpty() {
+        return patterns.size() == 0;
+    }
+
+    /** Approximate heap footprint of the automaton and its words, for memory accounting. */
+    long estimatedBytes() {
+        long bytes = 4L * (depth.length + fail.length + outputId.length + outputLink.length) + 12L * edgeKeys.length;
+        for (int id = 0; id < patterns.size(); id++) {
+            bytes += 40 + 2L * patterns.get(id).length();
+        }
+        return bytes;
+    }
+
+    /** The compiled words in id order, as an unmodifiable view. */
+    List<String> words() {
+        return new AbstractList<>() {
+            @Override
+            public String get(int index) {
+                Objects.checkIndex(index, patterns.size());
+                return patterns.get(index);
+            }
+
+            @Override
+            public int size() {
+                return patterns.size();
+            }
+        };
+    }
+
+    /**
+     * Writes the compiled automaton: counts, the state and edge arrays, then the patterns as
+     * UTF-8 with their end offsets. {@link #read(ByteBuffer)} maps it back without rebuilding.
+     */
+    void writeTo(DataOutput out) throws IOException {
+        int states = depth.length;
+        out.writeInt(patterns.size());
+        out.writeInt(states);
+        out.writeInt(edgeKeys.length);
+        for (int[] array : new int[][]{depth, fail, outputId, outputLink}) {
+            for (int value : array) out.writeInt(value);
+        }
+        for (long key : edgeKeys) out.writeLong(key);
+        for (int target : edgeTargets) out.writeInt(target);
+
+        byte[][] encoded = new byte[patterns.size()][];
+        int end = 0;
+        for (int id = 0; id < encoded.length; id++) {
+            encoded[id] = patterns.get(id).getBytes(StandardCharsets.UTF_8);
+            end += encoded[id].length;
+            out.writeInt(end);
+        }
+        for (byte[] bytes : encoded) out.write(bytes);
+    }
+
+    /**
+     * Reads an automaton written by {@link #writeTo(DataOutput)} from {@code buffer}'s position and
+     * advances past it. State and edge arrays are bulk-copied; pattern strings stay in the buffer.
+     */
+    static SubTokenMatcher read(ByteBuffer buffer) {
+        int patternCount = buffer.getInt();
+        int states = buffer.getInt();
+        int edgeCapacity = buffer.getInt();
+        int[] depth = readInts(buffer, states);
+        int[] fail = readInts(buffer, states);
+        int[] outputId = readInts(buffer, states);
+        int[] outputLink = readInts(buffer, states);
+        long[] edgeKeys = new long[edgeCapacity];
+        buffer.asLongBuffer().get(edgeKeys);
+        buffer.position(buffer.position() + edgeCapacity * Long.BYTES);
+        int[] edgeTargets = readInts(buffer, edgeCapacity);
+        int[] ends = readInts(buffer, patternCount);
+
+        ByteBuffer bytes = buffer.slice(buffer.position(), patternCount == 0 ? 0 : ends[patternCount - 1]);
+        buffer.position(buffer.position() + bytes.capacity());
+        Patterns patterns = new Patterns() {
+            @Override
+            public int size() {
+                return patternCount;
+            }
+
+            @Override
+            public String get(int id) {
+                int start = id == 0 ? 0 : ends[id - 1];
+                byte[] utf8 = new byte[ends[id] - start];
+                bytes.get(start, utf8);
+                return new String(utf8, StandardCharsets.UTF_8);
+            }
+        };
+        return new SubTokenMatcher(patterns, depth, fail, outputId, outputLink, edgeKeys, edgeTargets);
+    }
+
+    private static int[] readInts(ByteBuffer buffer, int count) {
+        int[] values = new int[count];
+        buffer.asIntBuffer().get(values);
+        buffer.position(buffer.position() + count * Integer.BYTES);
+        return values;
+    }
+
+    private static Patterns arrayPatterns(String[] patterns) {
+        return new Patterns() {
+            @Override
+            public int size() {
+                return patterns.length;
+            }
+
+            @Override
+            public String get(int id) {
+                return patterns[id];
+            }
+        };
+    }
+
+    /**
+     * Reports every base word that occurs in {@code word} (other than {@code word} itself) with the
+     * offset of its first occurrence, in pattern id order.
+     */
+    void forEachSubToken(String word, SubTokenConsumer consumer) {
+        if (patterns.size() == 0) return;
+
+        // pairs of (id, first offset); nouns rarely contain more than a handful of base words
+        int[] found = null;
+        int count = 0;
+
+        int state = 0;
+        for (int i = 0; i < word.length(); i++) {
+            char c = word.charAt(i);
+            int next;
+            while ((next = lookup(edgeKeys, edgeTargets, edgeMask, state, c)) < 0 && state != 0) {
+                state = fail[state];
+            }
+            state = Math.max(next, 0);
+
+            for (int s = outputId[state] >= 0 ? state : outputLink[state]; s > 0; s = outputLink[s]) {
+                if (depth[s] == word.length()) continue;
+                int id = outputId[s];
+                if (found == null) {
+                    found = new int[8];
+                } else if (indexOf(found, count, id) >= 0) {
+                    continue;
+                } else if (count * 2 == found.length) {
+                    found = Arrays.copyOf(found, found.length * 2);
+                }
+                found[count * 2] = id;
+                found[count * 2 + 1] = i + 1 - depth[s];
+                count++;
+            }
+        }
+        if (count == 0) return;
+
+        long[] ordered = new long[count];
+        for (int k = 0; k < count; k++) {
+            ordered[k] = ((long) found[k * 2] << 32) | found[k * 2 + 1];
+        }
+        Arrays.sort(ordered);
+        for (long entry : ordered) {
+            consumer.accept(patterns.get((int) (entry >>> 32)), (int) entry);
+        }
+    }
+
+    private static int indexOf(int[] found, int count, int id) {
+        for (int k = 0; k < count; k++) {
+            if (found[k * 2] == id) return k;
+        }
+        return -1;
+    }
+
+    private static long edgeKey(int state, char c) {
+        return ((long) state << 16) | c;
+    }
+
+    private static int slot(long key, int mask) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 32) & mask;
+    }
+
+    private static int lookup(long[] keys, int[] targets, int mask, int state, char c) {
+        long key = edgeKey(state, c);
+        for (int i = slot(key, mask); ; i = (i + 1) & mask) {
+            if (keys[i] == key) return targets[i];
+            if (keys[i] == -1L) return -1;
+        }
+    }
+
+    private static void insert(long[] keys, int[] targets, int mask, int state, char c, int target) {
+        long key = edgeKey(state, c);
+        int i = slot(key, mask);
+        while (keys[i] != -1L) i = (i + 1) & mask;
+        keys[i] = key;
+        targets[i] = target;
+    }
+}
@@ -0,0 +1,83 @@
+package com.rothem.tree.textfeature;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Cuts a character stream into chunks of bounded size for streaming extraction.
+ * Cuts are placed after a sentence end or line break when possible, otherwise at whitespace.
+ * Whitespace between two digit groups is avoided because phone and account patterns allow it.
+ */
+final class TextChunker {
+    private static final String SENTENCE_ENDS = ".!?。？！";
+
+    private final Reader reader;
+    private final char[] buffer;
+    private int length;
+    private long offset;
+    private long chunkOffset;
+    private boolean eof;
+
+    TextChunker(Reader reader, int chunkChars) {
+        this.reader = reader;
+        this.buffer = new char[chunkChars];
+    }
+
+    /** Returns the next chunk, or {@code null} once the stream is exhausted. */
+    String next() throws IOException {
+        fill();
+        if (length == 0) return null;
+
+        int cut = eof ? length : findCut();
+        String chunk = new String(buffer, 0, cut);
+        chunkOffset = offset;
+        offset += cut;
+        System.arraycopy(buffer, cut, buffer, 0, length - cut);
+        length -= cut;
+        return chunk;
+    }
+
+    /** Absolute character offset of the chunk last returned by {@link #next()}. */
+    long chunkOffset() {
+        return chunkOffset;
+    }
+
+    private void fill() throws IOException {
+        while (!eof && length < buffer.length) {
+            int n = reader.read(buffer, length, buffer.length - length);
+            if (n < 0) {
+                eof = true;
+            } else {
+                length += n;
+            }
+        }
+    }
+
+    private int findCut() {
+        // prefer sentence boundaries in the second half of the buffer so chunks stay large
+        for (int i = length - 1; i >= length / 2; i--) {
+            if (!Character.isWhitespace(buffer[i]) || !isSafeGap(i)) continue;
+            if (buffer[i] == '\n' || (i > 0 && SENTENCE_ENDS.indexOf(buffer[i - 1]) >= 0)) return i + 1;
+        }
+        for (int i = length - 1; i > 0; i--) {
+            if (Character.isWhitespace(buffer[i]) && isSafeGap(i)) return i + 1;
+        }
+        for (int i = length - 1; i > 0; i--) {
+            if (Character.isWhitespace(buffer[i])) return i + 1;
+        }
+        // no whitespace at all: hard cut, but never between a surrogate pair
+        return Character.isHighSurrogate(buffer[length - 1]) ? length - 1 : length;
+    }
+
+    private boolean isSafeGap(int i) {
+        int before = i;
+        while (before >= 0 && Character.isWhitespace(buffer[before])) before--;
+        if (before < 0 || !Character.isDigit(buffer[before])) return true;
+
+        int after = i;
+        while (after < length && Character.isWhitespace(buffer[after])) after++;
+        // the next group is not buffered yet, so it may well be digits
+        if (after == length) return false;
+        return !Character.isDigit(buffer[after]) && buffer[after] != '+';
+    }
+}
@@ -0,0 +1,1055 @@
+package com.rothem.tree.textfeature;
+
+import com.rothem.tree.textfeature.data.BatchExtractionResult;
+import com.rothem.tree.textfeature.data.CacheStats;
+import com.rothem.tree.textfeature.data.CompactKeywordResult;
+import com.rothem.tree.textfeature.data.DictionaryCommitResult;
+import com.rothem.tree.textfeature.data.DictionaryOverlayStats;
+import com.rothem.tree.textfeature.data.KeywordExtractionResult;
+import com.rothem.tree.textfeature.data.RankedKeyword;
+import com.rothem.tree.textfeature.data.RegexScanResult;
+import kr.co.shineware.nlp.komoran.constant.DEFAULT_MODEL;
+import kr.co.shineware.nlp.komoran.model.Token;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.UnaryOperator;
+
+/**
+ * Thread-safe keyword extractor. One instance can be shared by any number of threads.
+ *
+ * <p>KOMORAN analyzers are kept in a bounded pool and each is used by a single thread at a time.
+ * User dictionary changes are published as immutable snapshots (copy-on-write); an analyzer
+ * picks up the latest snapshot the next time it is borrowed, never while it is analyzing.
+ * Named dictionary overlays (see {@link Builder#dictionaryOverlays(DictionaryOverlayLoader)}) are applied
+ * the same way, so any number of them share the pool's models. Borrowers get an analyzer that already holds
+ * the snapshot they need when one is idle, so interleaved overlays do not reload each other's files.
+ */
+public class TextFeatureExtractor {
+    private static final int[] UNKNOWN_SPAN = {-1, -1};
+    private static final int WARM_UP_ROUNDS = 500;
+    private static final int BUDGET_SEGMENT_CHARS = 4096;
+    private static final List<String> WARM_UP_SAMPLES = List.of(
+            "2024년 3분기 경영실적 보고서를 010-1234-5678 담당자에게 전달했습니다.",
+            "법무RM팀_불복조서_v2_최종(수정본).hwp",
+            "계좌 123-456-789012 로 1,250,000원을 2024-05-13 에 이체 예정입니다.");
+
+    private final AnalyzerPool analyzers;
+    private final Executor batchExecutor;
+    private final int batchUnitChars;
+    private final int streamChunkChars;
+    private final ResultCache resultCache;
+    private final EojeolCache eojeolCache;
+    private final ExtractionMetrics metrics;
+    private final boolean includeOffsets;
+    private final ExtractionOptions options;
+    // options for rankKeywords, which only uses the nouns
+    private final ExtractionOptions rankingOptions;
+    private final int maxAnalyzedChars;
+    private final long analyzeBudgetNanos;
+    private final ReadWriteLock dictionaryLock = new ReentrantReadWriteLock();
+    private final DictionaryOverlays overlays;
+    private volatile UserDictionarySnapshot dictionary = UserDictionarySnapshot.EMPTY;
+
+    public TextFeatureExtractor() {
+        this(builder());
+    }
+
+    private TextFeatureExtractor(Builder builder) {
+        this.analyzers = new AnalyzerPool(builder.model, builder.poolSize);
+        this.batchExecutor = builder.batchExecutor;
+        this.batchUnitChars = builder.batchUnitChars;
+        this.streamChunkChars = builder.streamChunkChars;
+        this.resultCache = builder.resultCacheSize > 0 ? new ResultCache(builder.resultCacheSize) : null;
+        this.eojeolCache = builder.eojeolCacheSize > 0 ? new EojeolCache(builder.eojeolCacheSize) : null;
+        this.metrics = builder.metrics;
+        this.includeOffsets = builder.includeOffsets;
+        this.options = builder.options;
+        this.rankingOptions = builder.options.withoutRegexKeys();
+        this.maxAnalyzedChars = builder.maxAnalyzedChars;
+        this.analyzeBudgetNanos = builder.analyzeBudget.toNanos();
+        this.overlays = builder.overlayLoader == null ? null : new DictionaryOverlays(builder.overlayLoader,
+                builder.overlayBudgetBytes, builder.overlayIdleTimeout.toNanos(), dictionaryLock, () -> dictionary,
+                analyzers::unload);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Adds user-defined words into KOMORAN's dictionary.
+     * Accepts plain words (automatically tagged as NNP) or already-formatted entries (e.g. "단어\tNNP").
+     */
+    public synchronized void addUserDictionary(Collection<String> userWords) {
+        if (userWords == null || userWords.isEmpty()) return;
+        publish("entries", current -> current.withEntries(userWords));
+    }
+
+    /**
+     * Loads a KOMORAN model with the current user dictionary and runs the extraction and filename paths
+     * over sample inputs so that they are JIT-compiled before the first request, on {@code batchExecutor}.
+     * Only one pooled analyzer is loaded; further ones are still created on demand.
+     * Until this or a first extraction runs, no model is loaded: {@link RegexExtractor} and
+     * {@link #splitFilenameToTokens(String)} never load one.
+     */
+    public CompletableFuture<Void> warmUp() {
+        return warmUp(batchExecutor);
+    }
+
+    /** Same as {@link #warmUp()}, on the given executor. */
+    public CompletableFuture<Void> warmUp(Executor executor) {
+        return CompletableFuture.runAsync(() -> {
+            for (int i = 0; i < WARM_UP_ROUNDS; i++) {
+                for (String sample : WARM_UP_SAMPLES) {
+                    // bypass the result cache so the full pipeline runs every round; keep samples out of the metrics
+                    extractUncached(sample, dictionary, ExtractionMetrics.NOOP, options);
+                    splitFilenameToTokens(sample);
+                }
+            }
+        }, executor);
+    }
+
+    /**
+     * Starts a transaction that stages many additions and removals and publishes them as one
+     * dictionary version, so bulk loads write and reload the dictionary once instead of per call.
+     */
+    public UserDictionaryTransaction editUserDictionary() {
+        return new UserDictionaryTransaction(this::commit);
+    }
+
+    /**
+     * Applies an existing KOMORAN user dictionary file.
+     *
+     * @param userDictionaryPath path to a KOMORAN-format user dictionary file
+     */
+    public synchronized void setUserDictionaryPath(String userDictionaryPath) {
+        if (userDictionaryPath == null || userDictionaryPath.isBlank()) return;
+        publish("file", current -> current.withFile(Path.of(userDictionaryPath)));
+    }
+
+    private synchronized DictionaryCommitResult commit(UserDictionaryTransaction transaction) {
+        long start = System.nanoTime();
+        UserDictionarySnapshot previous = dictionary;
+        UserDictionarySnapshot next = publish("transaction",
+                current -> current.withChanges(transaction.removals(), transaction.additions()));
+        return new DictionaryCommitResult(next.version(), next.entries().size(), next != previous, System.nanoTime() - start);
+    }
+
+    public List<String> extractUniqueKeywords(String text) {
+        if (resultCache != null || text == null || text.isBlank()) {
+            var result = extractKeywords(text);
+
+            Set<String> uniqueKeywords = new LinkedHashSet<>();
+
+            if (result.getNouns() != null) {
+                uniqueKeywords.addAll(result.getNouns());
+            }
+
+            if (result.getRegex() != null) {
+                for (List<String> values : result.getRegex().values()) {
+                    uniqueKeywords.addAll(values);
+                }
+            }
+
+            return new ArrayList<>(uniqueKeywords);
+        }
+
+        // without a result cache, go straight from the noun map and the regex pass to the one output set
+        List<String> regex = new ArrayList<>();
+        LinkedHashMap<String, int[]> nouns =
+                analyze(text, options, new ExtractionTrace(), (key, start, end) -> regex.add(text.substring(start, end)));
+        Set<String> uniqueKeywords = new LinkedHashSet<>(nouns.keySet());
+        uniqueKeywords.addAll(regex);
+        return new ArrayList<>(uniqueKeywords);
+    }
+
+    /**
+     * Extracts keywords from {@code text} into {@code sink}, without building a result: regex matches first,
+     * in {@link RegexExtractorKey} order, then nouns in first-occurrence order, then {@link KeywordSink#degraded}
+     * if the text exceeded the size or time budget. Offsets are into {@code text}. Bypasses the result cache.
+     */
+    public void extractKeywords(String text, KeywordSink sink) {
+        extractKeywords(text, options, sink);
+    }
+
+    /** Same as {@link #extractKeywords(String, KeywordSink)}, running only the stages {@code options} select. */
+    public void extractKeywords(String text, ExtractionOptions options, KeywordSink sink) {
+        Objects.requireNonNull(options, "options");
+        if (text == null || text.isBlank()) return;
+
+        ExtractionTrace trace = new ExtractionTrace();
+        LinkedHashMap<String, int[]> nouns =
+                analyze(text, options, trace, (key, start, end) -> sink.regexMatch(key, text.substring(start, end), start, end));
+        for (Map.Entry<String, int[]> noun : nouns.entrySet()) {
+            int[] span = noun.getValue();
+            sink.noun(noun.getKey(), span[0], span[1]);
+        }
+        if (trace.degraded()) sink.degraded(trace.degradedFrom(), text.length());
+    }
+
+    /**
+     * Like {@link #extractKeywords(String)}, but returns the compact, read-only form: regex matches in an
+     * {@link EnumMap} over the keys that matched, with no list allocated for the others. Bypasses the result cache.
+     */
+    public CompactKeywordResult extractKeywordsCompact(String text) {
+        return extractKeywordsCompact(text, options);
+    }
+
+    /** Same as {@link #extractKeywordsCompact(String)}, running only the stages {@code options} select. */
+    public CompactKeywordResult extractKeywordsCompact(String text, ExtractionOptions options) {
+        Objects.requireNonNull(options, "options");
+        if (text == null || text.isBlank()) return CompactKeywordResult.EMPTY;
+
+        EnumMap<RegexExtractorKey, List<String>> regex = new EnumMap<>(RegexExtractorKey.class);
+        ExtractionTrace trace = new ExtractionTrace();
+        LinkedHashMap<String, int[]> nouns = analyze(text, options, trace,
+                (key, start, end) -> regex.computeIfAbsent(key, k -> new ArrayList<>(2)).add(text.substring(start, end)));
+        return new CompactKeywordResult(List.copyOf(nouns.keySet()), regex, trace.degraded());
+    }
+
+    public KeywordExtractionResult extractKeywords(String text) {
+        return extractKeywords(text, options);
+    }
+
+    /**
+     * Extracts keywords running only the stages {@code options} select; regex keys that are not selected
+     * come back empty. The result cache only serves calls made with the extractor's own options.
+     */
+    public KeywordExtractionResult extractKeywords(String text, ExtractionOptions options) {
+        Objects.requireNonNull(options, "options");
+        if (text == null || text.isBlank()) {
+            return new KeywordExtractionResult(Collections.emptyList(), Collections.emptyMap());
+        }
+
+        // entries are keyed by the extractor's own dictionary version, which says nothing about an overlay
+        if (resultCache == null || !options.equals(this.options) || options.dictionaryOverlay() != null
+                || !ResultCache.isCacheable(text)) {
+            return extractUncached(text, dictionary, metrics, options);
+        }
+
+        UserDictionarySnapshot dic = dictionary;
+        KeywordExtractionResult cached = resultCache.get(text, dic.version());
+        if (cached != null) return cached;
+
+        KeywordExtractionResult result = extractUncached(text, dic, metrics, options);
+        // a degraded result depends on timing and is meant to be redone, so it is not kept
+        if (!result.isDegraded()) resultCache.put(text, dic.version(), result);
+        return result;
+    }
+
+    /**
+     * Starts configuring a {@link java.util.concurrent.Flow.Processor} that extracts keywords from a stream
+     * of texts with bounded concurrency and downstream-driven backpressure.
+     */
+    public KeywordExtractionProcessor.Builder processor() {
+        return KeywordExtractionProcessor.builder(this);
+    }
+
+    Executor batchExecutor() {
+        return batchExecutor;
+    }
+
+    int poolSize() {
+        return analyzers.maxSize();
+    }
+
+    /** Number of KOMORAN analyzers created so far, each holding a loaded model. */
+    int loadedAnalyzers() {
+        return analyzers.size();
+    }
+
+    /** Number of user dictionary files loaded into analyzers so far. */
+    long dictionaryLoads() {
+        return analyzers.dictionaryLoads();
+    }
+
+    /** Hit/miss/eviction counters of the result cache; all zero when the cache is disabled. */
+    public CacheStats cacheStats() {
+        return resultCache == null ? new CacheStats(0, 0, 0, 0) : resultCache.stats();
+    }
+
+    /** Hit/miss/eviction counters of the eojeol analysis cache; all zero when it is disabled. */
+    public CacheStats eojeolCacheStats() {
+        return eojeolCache == null ? new CacheStats(0, 0, 0, 0) : eojeolCache.stats();
+    }
+
+    /** Loaded overlays, their estimated cost and load/eviction counters; all zero when overlays are not enabled. */
+    public DictionaryOverlayStats dictionaryOverlayStats() {
+        return overlays == null ? new DictionaryOverlayStats(0, 0, 0, 0) : overlays.stats();
+    }
+
+    /**
+     * Makes the next extraction with overlay {@code name} load it again from the {@link DictionaryOverlayLoader},
+     * e.g. after the tenant's glossary changed. Calls already running keep the overlay they started with.
+     */
+    public void invalidateDictionaryOverlay(String name) {
+        if (overlays != null) overlays.invalidate(name);
+    }
+
+    /**
+     * Evicts the overlays idle for longer than the idle timeout. Extractions also do this as they go, so calling
+     * it is only needed to free memory while no overlay is being used.
+     *
+     * @return the number of overlays evicted
+     */
+    public int evictIdleDictionaryOverlays() {
+        return overlays == null ? 0 : overlays.evictIdle();
+    }
+
+    private KeywordExtractionResult extractUncached(String text, UserDictionarySnapshot dic, ExtractionMetrics metrics,
+                                                    ExtractionOptions options) {
+        Analysis analysis = analyze(text, dic, metrics, null, options);
+        RegexScanResult scan = analysis.scan();
+        LinkedHashMap<String, int[]> nouns = analysis.nouns();
+
+        if (!includeOffsets) {
+            return new KeywordExtractionResult(new ArrayList<>(nouns.keySet()), scan.getMatches(), null, null, analysis.degraded());
+        }
+        List<int[]> nounSpans = new ArrayList<>(nouns.size());
+        for (int[] span : nouns.values()) {
+            nounSpans.add(span == UNKNOWN_SPAN ? new int[]{-1, -1} : span);
+        }
+        return new KeywordExtractionResult(new ArrayList<>(nouns.keySet()), scan.getMatches(), nounSpans, scan.getMatchSpans(),
+                analysis.degraded());
+    }
+
+    /**
+     * Streams keywords from {@code reader} into {@code sink} in bounded memory.
+     * The input is cut into chunks of at most {@code streamChunkChars} characters at sentence or
+     * whitespace boundaries (never between digit groups of a phone or account number), so regex
+     * matches and eojeols are not split. Offsets are absolute character offsets in the stream.
+     * Nouns are de-duplicated within a chunk only, to keep memory bounded. The size and time budgets apply
+     * per chunk.
+     */
+    public void extractKeywords(Reader reader, KeywordSink sink) throws IOException {
+        TextChunker chunker = new TextChunker(reader, streamChunkChars);
+        String chunk;
+        while ((chunk = chunker.next()) != null) {
+            if (chunk.isBlank()) continue;
+            long base = chunker.chunkOffset();
+
+            ExtractionTrace trace = new ExtractionTrace();
+            RegexScanResult scan = RegexExtractor.scan(chunk, options);
+            trace.lap(ExtractionStage.REGEX_SCAN);
+            for (RegexExtractorKey key : RegexExtractorKey.values()) {
+                List<String> values = scan.getMatches().get(key.keyName());
+                List<int[]> spans = scan.getMatchSpans().get(key.keyName());
+                for (int i = 0; i < values.size(); i++) {
+                    sink.regexMatch(key, values.get(i), base + spans.get(i)[0], base + spans.get(i)[1]);
+                }
+            }
+
+            LinkedHashMap<String, int[]> nouns = extractNouns(chunk, dictionary, scan.getOccupiedSpans(), trace, null, options);
+            trace.report(metrics, chunk.length(), nouns.size(), countMatches(scan));
+            for (Map.Entry<String, int[]> noun : nouns.entrySet()) {
+                int[] span = noun.getValue();
+                if (span[0] < 0) {
+                    sink.noun(noun.getKey(), -1, -1);
+                } else {
+                    sink.noun(noun.getKey(), base + span[0], base + span[1]);
+                }
+            }
+            if (trace.degraded()) sink.degraded(base + trace.degradedFrom(), base + chunk.length());
+        }
+    }
+
+    /**
+     * Streams keywords from an input stream decoded with {@code charset}.
+     *
+     * @see #extractKeywords(Reader, KeywordSink)
+     */
+    public void extractKeywords(InputStream in, Charset charset, KeywordSink sink) throws IOException {
+        extractKeywords(new InputStreamReader(in, charset), sink);
+    }
+
+    /**
+     * Streams keywords from a file, memory-mapped in fixed windows so that files larger than the heap
+     * (or than 2 GB) can be processed.
+     *
+     * @see #extractKeywords(Reader, KeywordSink)
+     */
+    public void extractKeywords(Path path, Charset charset, KeywordSink sink) throws IOException {
+        try (Reader reader = new MappedFileReader(path, charset)) {
+            extractKeywords(reader, sink);
+        }
+    }
+
+    /**
+     * Runs the extraction pipeline and writes its hashed features into {@code out}, which is cleared first.
+     * Reusing one {@link FeatureVector} per thread avoids allocating output per document.
+     * Only the stages selected by the extractor's {@link Builder#options(ExtractionOptions) options} contribute
+     * features. Bypasses the result cache.
+     *
+     * @return {@code out}
+     */
+    public FeatureVector extractFeatures(String text, FeatureHasher hasher, FeatureVector out) {
+        out.clear();
+        if (text == null || text.isBlank()) return out;
+
+        Map<String, Integer> repeats = hasher.termFrequency() ? new HashMap<>() : null;
+        Analysis analysis = analyze(text, dictionary, metrics, repeats, options);
+
+        hasher.hashInto(analysis.nouns().keySet(), repeats, analysis.scan().getMatches(), out);
+        return out;
+    }
+
+    /**
+     * Runs the extraction pipeline and fills {@code out} with a MinHash signature, LSH band keys and a SimHash
+     * fingerprint over the nouns and regex values, hashing each of them once. Only the stages selected by the
+     * extractor's options contribute. Bypasses the result cache.
+     *
+     * @param out a signature created for {@code hasher}
+     * @return {@code out}
+     * @throws IllegalArgumentException if {@code out} was created for a hasher of another shape
+     */
+    public DocumentSignature extractSignature(String text, SignatureHasher hasher, DocumentSignature out) {
+        // fail before the analysis rather than after it
+        hasher.checkFits(out);
+        if (text == null || text.isBlank()) {
+            hasher.signInto(List.of(), Map.of(), out);
+            return out;
+        }
+        Analysis analysis = analyze(text, dictionary, metrics, null, options);
+        hasher.signInto(analysis.nouns().keySet(), analysis.scan().getMatches(), out);
+        return out;
+    }
+
+    /**
+     * Scores the nouns of {@code text} with {@code ranker} (TF-IDF or BM25 against its document-frequency table)
+     * and returns the {@code topK} best, highest score first; ties keep first-occurrence order. Nouns come from
+     * the stages the extractor's options select, with no regex key reported. Bypasses the result cache.
+     */
+    public List<RankedKeyword> rankKeywords(String text, KeywordRanker ranker, int topK) {
+        if (topK < 1) throw new IllegalArgumentException("topK must be positive: " + topK);
+        if (text == null || text.isBlank()) return new ArrayList<>();
+
+        Map<String, Integer> repeats = new HashMap<>();
+        Analysis analysis = analyze(text, dictionary, metrics, repeats, rankingOptions);
+        return ranker.rank(analysis.nouns().keySet(), repeats, topK);
+    }
+
+    /** Regex scan and noun extraction of one text, limited to {@code options} and reported to {@code metrics}. */
+    private Analysis analyze(String text, UserDictionarySnapshot dic, ExtractionMetrics metrics, Map<String, Integer> repeats,
+                             ExtractionOptions options) {
+        ExtractionTrace trace = new ExtractionTrace();
+        RegexScanResult scan = RegexExtractor.scan(text, options);
+        trace.lap(ExtractionStage.REGEX_SCAN);
+        LinkedHashMap<String, int[]> nouns = extractNouns(text, dic, scan.getOccupiedSpans(), trace, repeats, options);
+        trace.report(metrics, text.length(), nouns.size(), countMatches(scan));
+        return new Analysis(scan, nouns, trace.degraded());
+    }
+
+    private record Analysis(RegexScanResult scan, LinkedHashMap<String, int[]> nouns, boolean degraded) {
+    }
+
+    /**
+     * Regex pass straight into {@code matches}, then noun extraction, reported to the metrics; nothing else is
+     * collected. Time spent in {@code matches} counts as {@link ExtractionStage#REGEX_SCAN}; whether the text
+     * was degraded is left on {@code trace}.
+     */
+    private LinkedHashMap<String, int[]> analyze(String text, ExtractionOptions options, ExtractionTrace trace,
+                                                 RegexExtractor.MatchVisitor matches) {
+        int[] matchCount = new int[1];
+        List<int[]> occupiedSpans = RegexExtractor.scan(text, options, (key, start, end) -> {
+            matchCount[0]++;
+            matches.match(key, start, end);
+        });
+        trace.lap(ExtractionStage.REGEX_SCAN);
+        LinkedHashMap<String, int[]> nouns = extractNouns(text, dictionary, occupiedSpans, trace, null, options);
+        trace.report(metrics, text.length(), nouns.size(), matchCount[0]);
+        return nouns;
+    }
+
+    /**
+     * Runs KOMORAN and the noun post-processing over one text, as far as {@code options} select them.
+     * Values are the first-occurrence span of each noun, or {@code {-1, -1}} when it cannot be located.
+     * When {@code repeats} is given, it counts the occurrences of each noun beyond the first.
+     */
+    private LinkedHashMap<String, int[]> extractNouns(String text, UserDictionarySnapshot dic, List<int[]> occupiedSpans,
+                                                     ExtractionTrace trace, Map<String, Integer> repeats,
+                                                     ExtractionOptions options) {
+        LinkedHashMap<String, int[]> nouns = new LinkedHashMap<>();
+        if (options.nouns() && options.dictionaryOverlay() != null) {
+            DictionaryOverlays.Overlay overlay = acquireOverlay(options.dictionaryOverlay(), dic);
+            trace.lap(ExtractionStage.DICTIONARY_SYNC);
+            try {
+                addAnalyzedNouns(text, overlay.snapshot(), overlay, occupiedSpans, trace, repeats, nouns);
+            } finally {
+                overlays.release(overlay);
+            }
+        } else if (options.nouns()) {
+            addAnalyzedNouns(text, dic, null, occupiedSpans, trace, repeats, nouns);
+        }
+
+        if (options.filenameTokens() && TokenClassifier.looksLikeFilename(text)) {
+            for (String token : TokenClassifier.splitFilenameToTokens(text)) {
+                String normalized = TokenClassifier.normalizeToken(token);
+                if (!TokenClassifier.isMeaningfulFilenameToken(normalized)) continue;
+                int at = text.indexOf(normalized);
+                nouns.putIfAbsent(normalized, at < 0 ? UNKNOWN_SPAN : new int[]{at, at + normalized.length()});
+            }
+            trace.lap(ExtractionStage.FILENAME);
+        }
+
+        if (nouns.isEmpty()) return nouns;
+        splitWhitespaceTokens(nouns);
+        removeRedundantShortLatinTokens(nouns);
+        trace.lap(ExtractionStage.POST_PROCESS);
+
+        return nouns;
+    }
+
+    private DictionaryOverlays.Overlay acquireOverlay(String name, UserDictionarySnapshot base) {
+        if (overlays == null) {
+            throw new IllegalStateException("Dictionary overlay '" + name + "' requested, but no DictionaryOverlayLoader is configured");
+        }
+        return overlays.acquire(name, base);
+    }
+
+    /**
+     * Borrows an analyzer, runs KOMORAN and adds the nouns outside {@code occupiedSpans} to {@code nouns}.
+     * Text over the size budget, and the rest of the text once the time budget is spent, takes the degraded path.
+     * {@code overlay} is the overlay {@code dic} belongs to, or {@code null} for the extractor's own dictionary.
+     */
+    private void addAnalyzedNouns(String text, UserDictionarySnapshot dic, DictionaryOverlays.Overlay overlay,
+                                  List<int[]> occupiedSpans,
+                                  ExtractionTrace trace, Map<String, Integer> repeats, LinkedHashMap<String, int[]> nouns) {
+        SpanIndex occupied = SpanIndex.of(occupiedSpans);
+        if (text.length() > maxAnalyzedChars) {
+            trace.degradeFrom(0);
+            addDegradedNouns(text, 0, occupied, dic, repeats, nouns);
+            trace.lap(ExtractionStage.DEGRADED);
+            return;
+        }
+
+        AnalyzerPool.PooledAnalyzer analyzer = analyzers.borrow(dic);
+        trace.lap(ExtractionStage.ANALYZER_WAIT);
+        List<Token> tokens;
+        try {
+            UserDictionarySnapshot applied = syncDictionary(analyzer, dic, overlay);
+            trace.lap(ExtractionStage.DICTIONARY_SYNC);
+            // the eojeol cache holds analyses of the extractor's own dictionary only
+            boolean byEojeol = eojeolCache != null && !applied.isOverlay() && !applied.hasMultiWordEntries();
+            tokens = analyzeWithinBudget(analyzer, byEojeol, text, occupied, trace);
+            trace.lap(ExtractionStage.ANALYZE);
+        } finally {
+            analyzers.release(analyzer);
+        }
+        trace.tokens(tokens.size());
+
+        WordPositionSet used = new WordPositionSet(tokens.size());
+        for (Token token : tokens) {
+            if (!TokenClassifier.isValidNounTag(token.getPos())) continue;
+
+            String word = TokenClassifier.normalizeToken(token.getMorph());
+            int start = token.getBeginIndex();
+
+            if (word.isEmpty()) continue;
+            if (used.contains(word, start)) continue;
+            if (occupied.covers(start)) continue;
+            if (!TokenClassifier.isMeaningfulWord(word)) continue;
+
+            int wordStart = start + Math.max(0, token.getMorph().indexOf(word));
+            if (repeats != null && nouns.containsKey(word)) {
+                repeats.merge(word, 1, Integer::sum);
+            }
+            nouns.putIfAbsent(word, new int[]{wordStart, wordStart + word.length()});
+            addUserDictionarySubTokens(word, wordStart, dic, nouns);
+            used.add(word, start);
+        }
+        trace.lap(ExtractionStage.NOUN_FILTER);
+
+        if (trace.degraded()) {
+            addDegradedNouns(text, trace.degradedFrom(), occupied, dic, repeats, nouns);
+            trace.lap(ExtractionStage.DEGRADED);
+        }
+    }
+
+    /**
+     * Cheap stand-in for KOMORAN over {@code text[from, end)}: the filename tokenizer, josa stripping and the
+     * stopword filter, skipping regex matches like the analyzed path does.
+     */
+    private static void addDegradedNouns(String text, int from, SpanIndex occupied, UserDictionarySnapshot dic,
+                                         Map<String, Integer> repeats, LinkedHashMap<String, int[]> nouns) {
+        TokenClassifier.forEachFilenameToken(text, from, text.length(), (start, end) -> {
+            if (occupied.covers(start)) return;
+            String word = TokenClassifier.normalizeToken(text.substring(start, end));
+            if (!TokenClassifier.isMeaningfulDegradedToken(word)) return;
+
+            if (repeats != null && nouns.containsKey(word)) {
+                repeats.merge(word, 1, Integer::sum);
+            }
+            // normalizing only cuts a josa off the end, unless the token was not in NFC
+            int at = text.startsWith(word, start) ? start : -1;
+            nouns.putIfAbsent(word, at < 0 ? UNKNOWN_SPAN : new int[]{at, at + word.length()});
+            if (at >= 0) addUserDictionarySubTokens(word, at, dic, nouns);
+        });
+    }
+
+    /**
+     * Extracts keywords from every text on the configured batch executor and returns the results in input order.
+     */
+    public BatchExtractionResult extractKeywordsBatch(Iterable<String> texts) {
+        return extractKeywordsBatch(texts, batchExecutor);
+    }
+
+    /**
+     * Extracts keywords from every text on the given executor and returns the results in input order.
+     * Consecutive short inputs (e.g. filenames) are grouped into one task until they reach
+     * {@code batchUnitChars} characters. An item that throws gets an empty result and is reported
+     * in {@link BatchExtractionResult#getFailures()}; the rest of the batch still completes.
+     * Pass {@code Runnable::run} to run on the calling thread.
+     */
+    public BatchExtractionResult extractKeywordsBatch(Iterable<String> texts, Executor executor) {
+        Objects.requireNonNull(executor, "executor");
+        List<String> inputs = new ArrayList<>();
+        texts.forEach(inputs::add);
+
+        KeywordExtractionResult[] results = new KeywordExtractionResult[inputs.size()];
+        Throwable[] errors = new Throwable[inputs.size()];
+
+        List<CompletableFuture<Void>> units = new ArrayList<>();
+        int from = 0;
+        while (from < inputs.size()) {
+            int to = from;
+            int chars = 0;
+            while (to < inputs.size() && (to == from || chars < batchUnitChars)) {
+                String text = inputs.get(to++);
+                chars += text == null ? 0 : text.length();
+            }
+            int unitFrom = from;
+            int unitTo = to;
+            units.add(CompletableFuture.runAsync(() -> extractRange(inputs, unitFrom, unitTo, results, errors), executor));
+            from = to;
+        }
+        CompletableFuture.allOf(units.toArray(new CompletableFuture<?>[0])).join();
+
+        Map<Integer, Throwable> failures = new LinkedHashMap<>();
+        for (int i = 0; i < errors.length; i++) {
+            if (errors[i] != null) failures.put(i, errors[i]);
+        }
+        return new BatchExtractionResult(Arrays.asList(results), failures);
+    }
+
+    private void extractRange(List<String> inputs, int from, int to, KeywordExtractionResult[] results, Throwable[] errors) {
+        for (int i = from; i < to; i++) {
+            try {
+                results[i] = extractKeywords(inputs.get(i));
+            } catch (Exception | StackOverflowError e) {
+                results[i] = new KeywordExtractionResult(Collections.emptyList(), Collections.emptyMap());
+                errors[i] = e;
+            }
+        }
+    }
+
+    /**
+     * Brings the analyzer to {@code dic}, the snapshot this extraction started with, so that the
+     * KOMORAN dictionary, the sub-token base words and the cache key all refer to the same version.
+     *
+     * With an {@code overlay}, {@code dic} is one of its snapshots.
+     *
+     * @return the snapshot the analyzer now holds: {@code dic}, or a newer one published meanwhile
+     */
+    private UserDictionarySnapshot syncDictionary(AnalyzerPool.PooledAnalyzer analyzer, UserDictionarySnapshot dic,
+                                                  DictionaryOverlays.Overlay overlay) {
+        if (analyzer.applied() == dic) return dic;
+
+        // the read lock keeps publish() from deleting a snapshot file while it is being loaded
+        dictionaryLock.readLock().lock();
+        try {
+            UserDictionarySnapshot current = overlay == null ? dictionary : overlay.snapshot();
+            // a newer snapshot was published meanwhile and the old file may be gone; prefer the current one
+            UserDictionarySnapshot next = current.version() > dic.version() ? current : dic;
+            analyzer.apply(next);
+            return next;
+        } finally {
+            dictionaryLock.readLock().unlock();
+        }
+    }
+
+    /** Builds the next snapshot from the current one and publishes it; callers hold the instance lock. */
+    private UserDictionarySnapshot publish(String source, UnaryOperator<UserDictionarySnapshot> change) {
+        DictionaryReloadEvent event = new DictionaryReloadEvent();
+        event.begin();
+        UserDictionarySnapshot next = change.apply(dictionary);
+        publish(next);
+        event.end();
+        if (event.shouldCommit()) {
+            event.phase = DictionaryReloadEvent.PUBLISH;
+            event.source = source;
+            event.version = next.version();
+            event.entryCount = next.entries().size();
+            event.commit();
+        }
+        return next;
+    }
+
+    private void publish(UserDictionarySnapshot next) {
+        UserDictionarySnapshot previous = dictionary;
+        if (next == previous) return;
+
+        dictionaryLock.writeLock().lock();
+        try {
+            dictionary = next;
+            previous.release();
+        } finally {
+            dictionaryLock.writeLock().unlock();
+        }
+    }
+
+    // KOMORAN occasionally throws NPE internally on malformed input; guard and fall back to empty.
+    // The failure is kept on the trace so that metrics can count the lost input.
+    private static List<Token> analyzeSafely(AnalyzerPool.PooledAnalyzer analyzer, String text, ExtractionTrace trace) {
+        try {
+            var result = analyzer.komoran().analyze(text);
+            if (result == null || result.getTokenList() == null) return List.of();
+            return result.getTokenList();
+        } catch (Exception e) {
+            trace.analyzeFailed(e);
+            return List.of();
+        }
+    }
+
+    /**
+     * Analyzes {@code text[from, to)} one eojeol at a time, answering repeated eojeols from the eojeol cache, and returns
+     * the tokens with offsets into {@code text}, appended to {@code tokens}. Eojeols lying wholly inside a regex match are skipped, since
+     * none of their nouns would be kept. Each eojeol is analyzed on its own, so a cached analysis does not
+     * depend on the text it was first seen in.
+     */
+    private List<Token> analyzeByEojeol(AnalyzerPool.PooledAnalyzer analyzer, String text, int from, int to,
+                                        SpanIndex occupied, ExtractionTrace trace, List<Token> tokens) {
+        long version = analyzer.applied().version();
+        for (int i = from; i < to; ) {
+            while (i < to && TokenClassifier.isSpace(text.charAt(i))) i++;
+            int start = i;
+            while (i < to && !TokenClassifier.isSpace(text.charAt(i))) i++;
+            if (i == start) break;
+            if (occupied.contains(start, i)) continue;
+
+            String eojeol = text.substring(start, i);
+            boolean cacheable = EojeolCache.isCacheable(eojeol);
+            EojeolCache.Entry entry = cacheable ? eojeolCache.get(version, eojeol) : null;
+            if (entry == null) {
+                List<Token> analyzed;
+                try {
+                    var result = analyzer.komoran().analyze(eojeol);
+                    analyzed = result == null || result.getTokenList() == null ? List.of() : result.getTokenList();
+                } catch (Exception e) {
+                    // not cached, so a later occurrence is retried and reported again
+                    trace.analyzeFailed(e);
+                    continue;
+                }
+                entry = EojeolCache.Entry.of(version, analyzed);
+                if (cacheable) eojeolCache.put(eojeol, entry);
+            }
+            entry.appendTo(tokens, start);
+        }
+        return tokens;
+    }
+
+    /**
+     * Runs KOMORAN over {@code text}. With a time budget the text goes in segments of about
+     * {@value #BUDGET_SEGMENT_CHARS} characters cut at whitespace, and once the budget is spent the remaining
+     * segments are left to the degraded path, marked on {@code trace}.
+     */
+    private List<Token> analyzeWithinBudget(AnalyzerPool.PooledAnalyzer analyzer, boolean byEojeol, String text,
+                                            SpanIndex occupied, ExtractionTrace trace) {
+        if (analyzeBudgetNanos == 0) {
+            return byEojeol
+                    ? analyzeByEojeol(analyzer, text, 0, text.length(), occupied, trace, new ArrayList<>())
+                    : analyzeSafely(analyzer, text, trace);
+        }
+
+        List<Token> tokens = new ArrayList<>();
+        for (int from = 0; from < text.length(); ) {
+            if (trace.runningNanos() > analyzeBudgetNanos) {
+                trace.degradeFrom(from);
+                break;
+            }
+            int to = segmentEnd(text, from);
+            if (byEojeol) {
+                analyzeByEojeol(analyzer, text, from, to, occupied, trace, tokens);
+            } else if (from == 0 && to == text.length()) {
+                tokens.addAll(analyzeSafely(analyzer, text, trace));
+            } else {
+                for (Token token : analyzeSafely(analyzer, text.substring(from, to), trace)) {
+                    tokens.add(new Token(token.getMorph(), token.getPos(),
+                            token.getBeginIndex() + from, token.getEndIndex() + from));
+                }
+            }
+            from = to;
+        }
+        return tokens;
+    }
+
+    /** End of the budget segment starting at {@code from}: after the last whitespace in reach, else a hard cut. */
+    private static int segmentEnd(String text, int from) {
+        int limit = from + BUDGET_SEGMENT_CHARS;
+        if (limit >= text.length()) return text.length();
+        for (int i = limit - 1; i > from + BUDGET_SEGMENT_CHARS / 2; i--) {
+            if (TokenClassifier.isSpace(text.charAt(i))) return i + 1;
+        }
+        return Character.isHighSurrogate(text.charAt(limit - 1)) ? limit - 1 : limit;
+    }
+
+    private static int countMatches(RegexScanResult scan) {
+        int count = 0;
+        for (List<String> values : scan.getMatches().values()) {
+            count += values.size();
+        }
+        return count;
+    }
+
+    public static List<String> splitFilenameToTokens(String filename) {
+        return TokenClassifier.splitFilenameToTokens(filename);
+    }
+
+    private static void removeRedundantShortLatinTokens(LinkedHashMap<String, int[]> nouns) {
+        if (nouns.isEmpty()) return;
+
+        List<String> longer = null;
+        for (String n : nouns.keySet()) {
+            if (n.length() >= 2 && isLatinOrDigits(n)) {
+                if (longer == null) longer = new ArrayList<>();
+                longer.add(n.toLowerCase());
+            }
+        }
+        if (longer == null) return;
+
+        Iterator<String> it = nouns.keySet().iterator();
+        while (it.hasNext()) {
+            String n = it.next();
+            if (n.length() == 1 && TokenClassifier.isLatin(n.charAt(0))) {
+                String lower = n.toLowerCase();
+                for (String l : longer) {
+                    if (l.startsWith(lower)) {
+                        it.remove();
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    private static void splitWhitespaceTokens(LinkedHashMap<String, int[]> nouns) {
+        if (nouns.isEmpty()) return;
+
+        LinkedHashMap<String, int[]> rebuilt = new LinkedHashMap<>();
+        for (Map.Entry<String, int[]> entry : nouns.entrySet()) {
+            String noun = entry.getKey();
+            int[] span = entry.getValue();
+            if (noun.indexOf(' ') >= 0) {
+                for (int i = 0; i < noun.length(); ) {
+                    while (i < noun.length() && TokenClassifier.isSpace(noun.charAt(i))) i++;
+                    int partStart = i;
+                    while (i < noun.length() && !TokenClassifier.isSpace(noun.charAt(i))) i++;
+                    if (i == partStart) break;
+
+                    String normalized = TokenClassifier.normalizeToken(noun.substring(partStart, i));
+                    if (normalized.isEmpty()) continue;
+                    if (!TokenClassifier.isMeaningfulWord(normalized)) continue;
+                    int at = noun.indexOf(normalized);
+                    rebuilt.putIfAbsent(normalized, span[0] < 0 || at < 0
+                            ? UNKNOWN_SPAN : new int[]{span[0] + at, span[0] + at + normalized.length()});
+                }
+            } else {
+                rebuilt.putIfAbsent(noun, span);
+            }
+        }
+
+        nouns.clear();
+        nouns.putAll(rebuilt);
+    }
+
+    private static boolean isLatinOrDigits(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (!TokenClassifier.isLatinOrDigit(s.charAt(i))) return false;
+        }
+        return true;
+    }
+
+    private static void addUserDictionarySubTokens(String word, int wordStart, UserDictionarySnapshot dic,
+                                                   LinkedHashMap<String, int[]> nouns) {
+        dic.forEachSubToken(word, (base, at) ->
+                nouns.putIfAbsent(base, new int[]{wordStart + at, wordStart + at + base.length()}));
+    }
+
+    public static final class Builder {
+        private DEFAULT_MODEL model = DEFAULT_MODEL.FULL;
+        private int poolSize = Runtime.getRuntime().availableProcessors();
+        private Executor batchExecutor = ForkJoinPool.commonPool();
+        private int batchUnitChars = 4096;
+        private int streamChunkChars = 16 * 1024;
+        private int resultCacheSize;
+        private int eojeolCacheSize;
+        private ExtractionMetrics metrics = ExtractionMetrics.NOOP;
+        private boolean includeOffsets;
+        private ExtractionOptions options = ExtractionOptions.ALL;
+        private int maxAnalyzedChars = Integer.MAX_VALUE;
+        private Duration analyzeBudget = Duration.ZERO;
+        private DictionaryOverlayLoader overlayLoader;
+        private long overlayBudgetBytes = 64L << 20;
+        private Duration overlayIdleTimeout = Duration.ofMinutes(10);
+
+        private Builder() {
+        }
+
+        public Builder model(DEFAULT_MODEL model) {
+            this.model = Objects.requireNonNull(model, "model");
+            return this;
+        }
+
+        /**
+         * Maximum number of KOMORAN instances; each one holds its own copy of the model. With dictionary overlays
+         * the pool also grows to keep different overlays on different analyzers.
+         */
+        public Builder poolSize(int poolSize) {
+            this.poolSize = poolSize;
+            return this;
+        }
+
+        /**
+         * Default executor for {@code extractKeywordsBatch}, e.g. a fork-join pool or
+         * {@code Executors.newVirtualThreadPerTaskExecutor()}. Defaults to the common fork-join pool.
+         */
+        public Builder batchExecutor(Executor batchExecutor) {
+            this.batchExecutor = Objects.requireNonNull(batchExecutor, "batchExecutor");
+            return this;
+        }
+
+        /** Short inputs are grouped into one batch task until their combined length reaches this many characters. */
+        public Builder batchUnitChars(int batchUnitChars) {
+            if (batchUnitChars < 1) throw new IllegalArgumentException("batchUnitChars must be positive: " + batchUnitChars);
+            this.batchUnitChars = batchUnitChars;
+            return this;
+        }
+
+        /** Upper bound on the characters handed to KOMORAN at once when streaming. */
+        public Builder streamChunkChars(int streamChunkChars) {
+            if (streamChunkChars < 256) throw new IllegalArgumentException("streamChunkChars must be at least 256: " + streamChunkChars);
+            this.streamChunkChars = streamChunkChars;
+            return this;
+        }
+
+        /**
+         * Enables an LRU cache of up to {@code maxEntries} results for repeated inputs such as filenames
+         * and templated subjects. Entries are keyed by the text and the user dictionary version, so any
+         * dictionary change invalidates them. {@code 0} (the default) disables the cache.
+         */
+        public Builder resultCacheSize(int maxEntries) {
+            if (maxEntries < 0) throw new IllegalArgumentException("resultCacheSize must not be negative: " + maxEntries);
+            this.resultCacheSize = maxEntries;
+            return this;
+        }
+
+        /**
+         * Analyzes text eojeol by eojeol and keeps the analyses of up to {@code maxEntries} eojeols, so common
+         * word forms skip KOMORAN. An eojeol is then analyzed without its neighbours as context, which can
+         * change an ambiguous analysis, hence opt-in. Dictionary changes invalidate the cache, and a dictionary
+         * with multi-word entries turns it off. {@code 0} (the default) disables it.
+         */
+        public Builder eojeolCacheSize(int maxEntries) {
+            if (maxEntries < 0) throw new IllegalArgumentException("eojeolCacheSize must not be negative: " + maxEntries);
+            this.eojeolCacheSize = maxEntries;
+            return this;
+        }
+
+        /** Receives per-stage timings, counters and swallowed KOMORAN failures. Defaults to a no-op. */
+        public Builder metrics(ExtractionMetrics metrics) {
+            this.metrics = Objects.requireNonNull(metrics, "metrics");
+            return this;
+        }
+
+        /**
+         * Fills {@link KeywordExtractionResult#getNounSpans()} and {@link KeywordExtractionResult#getRegexSpans()}
+         * with {@code [start, end)} offsets, e.g. for highlighting. Off by default.
+         */
+        public Builder includeOffsets(boolean includeOffsets) {
+            this.includeOffsets = includeOffsets;
+            return this;
+        }
+
+        /**
+         * Stages run by the calls that take no options of their own ({@code extractKeywords}, batches, streams,
+         * processors), e.g. {@link ExtractionOptions#REGEX_ONLY} for an entity scanner that never loads a
+         * KOMORAN model. Defaults to {@link ExtractionOptions#ALL}.
+         */
+        public Builder options(ExtractionOptions options) {
+            this.options = Objects.requireNonNull(options, "options");
+            return this;
+        }
+
+        /**
+         * Inputs longer than this many characters skip KOMORAN: their nouns come from the filename tokenizer
+         * with josa stripping and stopword filtering, and the result is marked degraded. Unlimited by default.
+         */
+        public Builder maxAnalyzedChars(int maxAnalyzedChars) {
+            if (maxAnalyzedChars < 1) throw new IllegalArgumentException("maxAnalyzedChars must be positive: " + maxAnalyzedChars);
+            this.maxAnalyzedChars = maxAnalyzedChars;
+            return this;
+        }
+
+        /**
+         * Wall-time budget of one extraction, counted from its start. Long inputs then go to KOMORAN in segments,
+         * and once the budget is spent the remaining text is tokenized as with {@link #maxAnalyzedChars(int)} and
+         * the result is marked degraded. KOMORAN cannot be interrupted, so a call may overrun by one segment.
+         * {@link Duration#ZERO} (the default) disables it.
+         */
+        public Builder analyzeBudget(Duration analyzeBudget) {
+            Objects.requireNonNull(analyzeBudget, "analyzeBudget");
+            if (analyzeBudget.isNegative()) throw new IllegalArgumentException("analyzeBudget must not be negative: " + analyzeBudget);
+            this.analyzeBudget = analyzeBudget;
+            return this;
+        }
+
+        /**
+         * Enables named user dictionary overlays, e.g. one per tenant, selected per call with
+         * {@link ExtractionOptions.Builder#dictionaryOverlay(String)}. An overlay is loaded through {@code loader}
+         * on first use and layered over this extractor's own user dictionary. Overlays are applied to the pooled
+         * analyzers like any dictionary change, so they share the pool's models; per overlay there are its entries
+         * and sub-token automaton, a file repeating this extractor's dictionary, and KOMORAN's parsed copy of that
+         * file in each analyzer holding it.
+         */
+        public Builder dictionaryOverlays(DictionaryOverlayLoader loader) {
+            this.overlayLoader = Objects.requireNonNull(loader, "loader");
+            return this;
+        }
+
+        /**
+         * Estimated bytes the loaded overlays may hold, counting their files and KOMORAN's parsed copies of them,
+         * before the least recently used idle ones are evicted and unloaded from the analyzers. Defaults to 64 MB.
+         */
+        public Builder dictionaryOverlayBudgetBytes(long maxBytes) {
+            if (maxBytes < 0) throw new IllegalArgumentException("dictionaryOverlayBudgetBytes must not be negative: " + maxBytes);
+            this.overlayBudgetBytes = maxBytes;
+            return this;
+        }
+
+        /**
+         * Overlays not used for this long are evicted and loaded again on their next use. Defaults to 10 minutes;
+         * {@link Duration#ZERO} keeps them until the memory budget requires otherwise.
+         */
+        public Builder dictionaryOverlayIdleTimeout(Duration idleTimeout) {
+            Objects.requireNonNull(idleTimeout, "idleTimeout");
+            if (idleTimeout.isNegative()) throw new IllegalArgumentException("dictionaryOverlayIdleTimeout must not be negative: " + idleTimeout);
+            this.overlayIdleTimeout = idleTimeout;
+            return this;
+        }
+
+        public TextFeatureExtractor build() {
+            return new TextFeatureExtractor(this);
+        }
+    }
+}
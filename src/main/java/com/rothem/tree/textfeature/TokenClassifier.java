@@ -0,0 +1,295 @@
+package com.rothem.tree.textfeature;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Regex-free classification and normalization of analyzed tokens and filename parts.
+ * Character classes come from a lookup table over the BMP; results are identical to the
+ * regular expressions this replaces (ASCII {@code \d}, {@code \w}, {@code \s} and {@code \p{Punct}}).
+ */
+final class TokenClassifier {
+    private static final int SYLLABLE = 1;     // 가-힣
+    private static final int JAMO = 1 << 1;    // U+1100-U+11FF, U+3130-U+318F
+    private static final int LATIN = 1 << 2;   // A-Z a-z
+    private static final int DIGIT = 1 << 3;   // 0-9
+    private static final int PUNCT = 1 << 4;   // \p{Punct} and curly quotes
+    private static final int SPACE = 1 << 5;   // \s
+    private static final int EN_WORD = 1 << 6; // letters, apostrophe, hyphen, period
+    private static final int NFC_STABLE = 1 << 7;
+
+    private static final int FILENAME_CHAR = SYLLABLE | JAMO | LATIN | DIGIT;
+
+    private static final byte[] CLASSES = new byte[Character.MAX_VALUE + 1];
+
+    static {
+        for (int c = 0; c < 0x300; c++) mark(c, NFC_STABLE);
+        for (int c = 0xAC00; c <= 0xD7A3; c++) mark(c, SYLLABLE | NFC_STABLE);
+        for (int c = 0x1100; c <= 0x11FF; c++) mark(c, JAMO);
+        for (int c = 0x3130; c <= 0x318F; c++) mark(c, JAMO);
+        for (int c = 'A'; c <= 'Z'; c++) mark(c, LATIN | EN_WORD);
+        for (int c = 'a'; c <= 'z'; c++) mark(c, LATIN | EN_WORD);
+        for (int c = '0'; c <= '9'; c++) mark(c, DIGIT);
+        for (char c : "!\"#$%&'()*+,-./:;<=>?@[\\]^_`{|}~“”‘’".toCharArray()) mark(c, PUNCT);
+        for (char c : " \t\n\u000B\f\r".toCharArray()) mark(c, SPACE);
+        for (char c : "'-.".toCharArray()) mark(c, EN_WORD);
+    }
+
+    private static final char[] JOSA_1 = "은는이가을를의에로과와도만".toCharArray();
+    private static final String[] JOSA_2 = {"에서", "에게", "한테", "으로", "까지", "부터"};
+
+    static final Set<String> EN_STOPWORDS = Set.of(
+            "a","about","above","after","again","against","all","am","an","and","any","are","aren't",
+            "as","at","be","because","been","before","being","below","between","both","but","by",
+            "can't","cannot","could","couldn't","did","didn't","do","does","doesn't","doing","don't",
+            "down","during","each","few","for","from","further","had","hadn't","has","hasn't","have",
+            "haven't","having","he","he'd","he'll","he's","her","here","here's","hers","herself",
+            "him","himself","his","how","how's","i","i'd","i'll","i'm","i've","if","in","into","is",
+            "isn't","it","it's","its","itself","let's","me","more","most","mustn't","my","myself",
+            "no","nor","not","of","off","on","once","only","or","other","ought","our","ours",
+            "ourselves","out","over","own","same","shan't","she","she'd","she'll","she's","should",
+            "shouldn't","so","some","such","than","that","that's","the","their","theirs","them",
+            "themselves","then","there","there's","these","they","they'd","they'll","they're",
+            "they've","this","those","through","to","too","under","until","up","very","was","wasn't",
+            "we","we'd","we'll","we're","we've","were","weren't","what","what's","when","when's",
+            "where","where's","which","while","who","who's","whom","why","why's","will","with",
+            "won't","would","wouldn't","you","you'd","you'll","you're","you've","your","yours",
+            "yourself","yourselves"
+    );
+
+    private TokenClassifier() {
+    }
+
+    private static void mark(int c, int flags) {
+        CLASSES[c] |= (byte) flags;
+    }
+
+    private static boolean is(char c, int flags) {
+        return (CLASSES[c] & flags) != 0;
+    }
+
+    private static boolean allOf(String s, int flags) {
+        for (int i = 0; i < s.length(); i++) {
+            if ((CLASSES[s.charAt(i)] & flags) == 0) return false;
+        }
+        return true;
+    }
+
+    static boolean isLatin(char c) {
+        return is(c, LATIN);
+    }
+
+    static boolean isLatinOrDigit(char c) {
+        return is(c, LATIN | DIGIT);
+    }
+
+    /** ASCII {@code \s}, as used by {@code split("\\s+")}. */
+    static boolean isSpace(char c) {
+        return is(c, SPACE);
+    }
+
+    /** Skips {@link Normalizer} for text made only of Latin-1/Latin Extended and precomposed Hangul syllables. */
+    static String toNfc(String s) {
+        if (allOf(s, NFC_STABLE)) return s;
+        return Normalizer.normalize(s, Normalizer.Form.NFC);
+    }
+
+    static boolean isValidNounTag(String tag) {
+        if (tag == null) return false;
+        return switch (tag) {
+            case "NNG", "NNP", "NP", "NR", "SH", "SL", "NA" -> true;
+            default -> false;
+        };
+    }
+
+    /**
+     * NFC-normalizes, strips leading and trailing punctuation and, for all-Hangul words,
+     * a trailing josa when at least two syllables remain.
+     */
+    static String normalizeToken(String word) {
+        if (word == null) return "";
+
+        String s = toNfc(word);
+        int start = 0;
+        int end = s.length();
+        while (start < end && is(s.charAt(start), PUNCT)) start++;
+
+        // like the "[...]+$" it replaces, trailing punctuation is also stripped in front of a final line terminator
+        int terminator = finalLineTerminatorLength(s, start, end);
+        int punctEnd = end - terminator;
+        int punctStart = punctEnd;
+        while (punctStart > start && is(s.charAt(punctStart - 1), PUNCT)) punctStart--;
+        if (terminator > 0) {
+            if (punctStart == punctEnd) return s.substring(start, end).trim();
+            return s.substring(start, punctStart).concat(s.substring(punctEnd, end)).trim();
+        }
+        end = punctStart;
+
+        if (end - start >= 2 && allOf(s, start, end, SYLLABLE)) {
+            // the longest josa suffix that leaves a non-empty stem wins, as with the lazy (.+?) it replaces
+            int cut = -1;
+            if (end - start >= 3 && isJosa2(s.charAt(end - 2), s.charAt(end - 1))) {
+                cut = end - 2;
+            } else if (isJosa1(s.charAt(end - 1))) {
+                cut = end - 1;
+            }
+            if (cut - start >= 2) end = cut;
+        }
+
+        while (start < end && s.charAt(start) <= ' ') start++;
+        while (end > start && s.charAt(end - 1) <= ' ') end--;
+        return start == 0 && end == s.length() ? s : s.substring(start, end);
+    }
+
+    static boolean isMeaningfulWord(String word) {
+        if (word.length() >= 2 && allOf(word, DIGIT)) return false; // 숫자만 두 자리 이상
+        if (!word.isEmpty() && allOf(word, EN_WORD)) {
+            return !EN_STOPWORDS.contains(hasUpperCase(word) ? word.toLowerCase() : word);
+        }
+        return true;
+    }
+
+    static boolean isMeaningfulFilenameToken(String word) {
+        if (word == null || word.isEmpty()) return false;
+        if (word.length() == 1 && is(word.charAt(0), SYLLABLE)) return false; // avoid single-syllable noise like "팀"
+        if (word.length() >= 2 && allOf(word, DIGIT)) return true; // allow numeric tokens in filenames
+        return isMeaningfulWord(word);
+    }
+
+    /**
+     * Token filter of the degraded path, which tokenizes prose like a filename: drops single syllables, bare
+     * numbers and English stopwords.
+     */
+    static boolean isMeaningfulDegradedToken(String word) {
+        if (word.isEmpty()) return false;
+        if (word.length() == 1 && is(word.charAt(0), SYLLABLE)) return false;
+        return isMeaningfulWord(word);
+    }
+
+    /** Equivalent of finding {@code \.[A-Za-z0-9]{2,6}(\s|$)}. */
+    static boolean looksLikeFilename(String text) {
+        if (text == null) return false;
+        int n = text.length();
+        for (int dot = text.indexOf('.'); dot >= 0; dot = text.indexOf('.', dot + 1)) {
+            int end = dot + 1;
+            while (end < n && end - dot <= 7 && is(text.charAt(end), LATIN | DIGIT)) end++;
+            int run = end - dot - 1;
+            if (run < 2 || run > 6) continue;
+            if (end == n || is(text.charAt(end), SPACE) || isFinalLineTerminator(text, end)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Splits a filename into runs of Hangul, jamo, Latin letters and digits; everything else separates tokens.
+     * A token that mixes Hangul with Latin letters or digits also contributes its single-script blocks.
+     */
+    static List<String> splitFilenameToTokens(String filename) {
+        Set<String> result = new LinkedHashSet<>();
+
+        String s = toNfc(filename);
+        forEachFilenameToken(s, 0, s.length(), (start, end) -> result.add(s.substring(start, end)));
+        return new ArrayList<>(result);
+    }
+
+    /** Receives the {@code [start, end)} bounds of one token. */
+    interface TokenSpanVisitor {
+        void token(int start, int end);
+    }
+
+    /**
+     * Same tokenizing as {@link #splitFilenameToTokens(String)} over {@code text[from, to)}, without normalizing
+     * or de-duplicating, reporting each token (and then its single-script blocks) by its offsets in {@code text}.
+     */
+    static void forEachFilenameToken(String text, int from, int to, TokenSpanVisitor visitor) {
+        int i = from;
+        while (i < to) {
+            while (i < to && !is(text.charAt(i), FILENAME_CHAR)) i++;
+            int start = i;
+            while (i < to && is(text.charAt(i), FILENAME_CHAR)) i++;
+            if (i == start) break;
+
+            visitor.token(start, i);
+            forEachScriptBlock(text, start, i, visitor);
+        }
+    }
+
+    private static void forEachScriptBlock(String text, int from, int to, TokenSpanVisitor visitor) {
+        int blocks = 0, hangul = 0, latin = 0, digit = 0;
+        for (int i = from; i < to; ) {
+            int cls = blockClass(text.charAt(i));
+            if (cls == 0) {
+                i++;
+                continue;
+            }
+            while (i < to && blockClass(text.charAt(i)) == cls) i++;
+            blocks++;
+            if (cls == SYLLABLE) hangul++;
+            else if (cls == LATIN) latin++;
+            else digit++;
+        }
+
+        if (blocks > 1 && hangul > 0 && (latin > 0 || digit > 0)) {
+            for (int i = from; i < to; ) {
+                int cls = blockClass(text.charAt(i));
+                if (cls == 0) {
+                    i++;
+                    continue;
+                }
+                int start = i;
+                while (i < to && blockClass(text.charAt(i)) == cls) i++;
+                visitor.token(start, i);
+            }
+        }
+    }
+
+    private static int blockClass(char c) {
+        return CLASSES[c] & (SYLLABLE | LATIN | DIGIT);
+    }
+
+    private static boolean allOf(String s, int from, int to, int flags) {
+        for (int i = from; i < to; i++) {
+            if ((CLASSES[s.charAt(i)] & flags) == 0) return false;
+        }
+        return true;
+    }
+
+    private static boolean hasUpperCase(String word) {
+        for (int i = 0; i < word.length(); i++) {
+            char c = word.charAt(i);
+            if (c >= 'A' && c <= 'Z') return true;
+        }
+        return false;
+    }
+
+    private static boolean isJosa1(char c) {
+        for (char josa : JOSA_1) {
+            if (josa == c) return true;
+        }
+        return false;
+    }
+
+    private static boolean isJosa2(char first, char second) {
+        for (String josa : JOSA_2) {
+            if (josa.charAt(0) == first && josa.charAt(1) == second) return true;
+        }
+        return false;
+    }
+
+    /** {@code $} without MULTILINE also matches right before a line terminator that ends the input. */
+    private static boolean isFinalLineTerminator(String text, int at) {
+        return finalLineTerminatorLength(text, at, text.length()) == text.length() - at;
+    }
+
+    private static int finalLineTerminatorLength(String s, int from, int to) {
+        if (to - from >= 2 && s.charAt(to - 2) == '\r' && s.charAt(to - 1) == '\n') return 2;
+        if (to > from) {
+            char c = s.charAt(to - 1);
+            if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') return 1;
+        }
+        return 0;
+    }
+}
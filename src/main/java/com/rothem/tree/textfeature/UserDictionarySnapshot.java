@@ -0,0 +1,268 @@
+package com.rothem.tree.textfeature;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Immutable view of the user dictionary at one point in time.
+ * A new snapshot is published on every change; analyzers apply it lazily when borrowed.
+ *
+ * <p>An overlay snapshot layers a tenant's entries over a base snapshot: its file holds both, while its own
+ * entries and automaton cover the tenant's words only and {@link #forEachSubToken} consults both automata.
+ */
+final class UserDictionarySnapshot {
+    static final UserDictionarySnapshot EMPTY =
+            new UserDictionarySnapshot(0L, Collections.emptySet(), Collections.emptySet(), SubTokenMatcher.EMPTY, null, false, false, null, 0L);
+
+    private final long version;
+    private final Set<String> entries;
+    private final Collection<String> baseWords;
+    private final SubTokenMatcher subTokens;
+    private final Path file;
+    private final boolean ownsFile;
+    private final boolean multiWord;
+    private final UserDictionarySnapshot base;
+    private final long fileBytes;
+    // analyzers that have this snapshot loaded
+    private final AtomicInteger loadedBy = new AtomicInteger();
+    private volatile boolean released;
+
+    private UserDictionarySnapshot(long version, Set<String> entries, Collection<String> baseWords,
+                                   SubTokenMatcher subTokens, Path file, boolean ownsFile, boolean multiWord,
+                                   UserDictionarySnapshot base, long fileBytes) {
+        this.version = version;
+        this.entries = entries;
+        this.baseWords = baseWords;
+        this.subTokens = subTokens;
+        this.file = file;
+        this.ownsFile = ownsFile;
+        this.multiWord = multiWord;
+        this.base = base;
+        this.fileBytes = fileBytes;
+    }
+
+    /**
+     * Returns an overlay of {@code entries} (already normalized) over {@code base}. {@code subTokens} and
+     * {@code multiWord} describe the entries alone; the KOMORAN file gets the base file's lines followed by them.
+     */
+    static UserDictionarySnapshot overlay(long version, UserDictionarySnapshot base, Set<String> entries,
+                                          SubTokenMatcher subTokens, boolean multiWord) {
+        try {
+            Path nextFile = Files.createTempFile("keyword-extractor-overlay", ".txt");
+            nextFile.toFile().deleteOnExit();
+            if (base.file() != null) {
+                Files.copy(base.file(), nextFile, StandardCopyOption.REPLACE_EXISTING);
+                Files.writeString(nextFile, "\n", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+            }
+            Files.writeString(nextFile, String.join("\n", entries), StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+            return new UserDictionarySnapshot(version, entries, Collections.emptySet(), subTokens, nextFile, true,
+                    multiWord || base.hasMultiWordEntries(), base, Files.size(nextFile));
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to apply dictionary overlay", e);
+        }
+    }
+
+    long version() {
+        return version;
+    }
+
+    Set<String> entries() {
+        return entries;
+    }
+
+    Collection<String> baseWords() {
+        return baseWords;
+    }
+
+    /** Automaton over the meaningful base words, rebuilt with every snapshot. */
+    SubTokenMatcher subTokens() {
+        return subTokens;
+    }
+
+    boolean isOverlay() {
+        return base != null;
+    }
+
+    /** Reports the base words contained in {@code word}: the base snapshot's first, then an overlay's own. */
+    void forEachSubToken(String word, SubTokenMatcher.SubTokenConsumer consumer) {
+        if (base != null) base.subTokens().forEachSubToken(word, consumer);
+        subTokens.forEachSubToken(word, consumer);
+    }
+
+    /**
+     * Whether any entry's word contains a space. KOMORAN can match such an entry across eojeols, so text
+     * analyzed with this dictionary cannot be split into eojeols first.
+     */
+    boolean hasMultiWordEntries() {
+        return multiWord;
+    }
+
+    /** KOMORAN-format file backing this snapshot, or {@code null} when no user dictionary is set. */
+    Path file() {
+        return file;
+    }
+
+    /** Size of an overlay's file, which repeats the base file's lines; 0 for other snapshots. */
+    long fileBytes() {
+        return fileBytes;
+    }
+
+    /** Number of analyzers that currently have this snapshot loaded. */
+    int loadedAnalyzers() {
+        return loadedBy.get();
+    }
+
+    void analyzerLoaded() {
+        loadedBy.incrementAndGet();
+    }
+
+    void analyzerUnloaded() {
+        loadedBy.decrementAndGet();
+    }
+
+    /** Whether a newer snapshot superseded this one, or its overlay was evicted. */
+    boolean isReleased() {
+        return released;
+    }
+
+    /**
+     * Returns a snapshot with the given entries appended, or {@code this} when nothing changes.
+     * The entries are written to a fresh temp file so analyzers still loading an older snapshot are not affected.
+     */
+    UserDictionarySnapshot withEntries(Collection<String> userWords) {
+        List<String> additions = new ArrayList<>(userWords.size());
+        for (String word : userWords) {
+            String normalized = normalizeEntry(word);
+            if (normalized != null) additions.add(normalized);
+        }
+        return withChanges(Collections.emptySet(), additions);
+    }
+
+    /**
+     * Returns a snapshot with every entry whose base word is in {@code removedWords} dropped and then
+     * {@code additions} (already normalized) appended, or {@code this} when nothing changes.
+     * However many changes there are, the dictionary file is written once.
+     */
+    UserDictionarySnapshot withChanges(Set<String> removedWords, Collection<String> additions) {
+        LinkedHashSet<String> nextEntries = new LinkedHashSet<>(entries);
+        LinkedHashSet<String> nextBaseWords = new LinkedHashSet<>(baseWords);
+        boolean updated = false;
+        if (!removedWords.isEmpty()) {
+            updated |= nextEntries.removeIf(entry -> removedWords.contains(baseWordOf(entry)));
+            updated |= nextBaseWords.removeAll(removedWords);
+        }
+        for (String entry : additions) {
+            updated |= nextEntries.add(entry);
+            String baseWord = baseWordOf(entry);
+            if (!baseWord.isEmpty()) {
+                updated |= nextBaseWords.add(baseWord);
+            }
+        }
+        if (!updated) return this;
+
+        try {
+            Path nextFile = Files.createTempFile("keyword-extractor-userdic", ".txt");
+            nextFile.toFile().deleteOnExit();
+            Files.writeString(nextFile, String.join("\n", nextEntries), StandardCharsets.UTF_8);
+            boolean nextMultiWord = false;
+            for (String entry : nextEntries) {
+                nextMultiWord |= isMultiWordEntry(entry);
+            }
+            return new UserDictionarySnapshot(version + 1, Collections.unmodifiableSet(nextEntries),
+                    Collections.unmodifiableSet(nextBaseWords), compile(nextBaseWords), nextFile, true, nextMultiWord, null, 0L);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to apply user dictionary", e);
+        }
+    }
+
+    /**
+     * Returns a snapshot backed by an existing KOMORAN user dictionary file, or by a
+     * {@link CompiledUserDictionary} when the file is one.
+     * Base words are replaced by the file's words; previously added entries are kept for later additions.
+     */
+    UserDictionarySnapshot withFile(Path userDictionaryPath) {
+        if (CompiledUserDictionary.isCompiled(userDictionaryPath)) {
+            return withCompiledFile(userDictionaryPath);
+        }
+        LinkedHashSet<String> nextBaseWords = new LinkedHashSet<>();
+        boolean nextMultiWord = false;
+        try {
+            for (String line : Files.readAllLines(userDictionaryPath, StandardCharsets.UTF_8)) {
+                String trimmed = line.trim();
+                if (trimmed.isEmpty()) continue;
+                nextMultiWord |= isMultiWordEntry(trimmed);
+                String baseWord = baseWordOf(trimmed);
+                if (!baseWord.isEmpty()) {
+                    nextBaseWords.add(baseWord);
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to read user dictionary file: " + userDictionaryPath, e);
+        }
+        return new UserDictionarySnapshot(version + 1, entries,
+                Collections.unmodifiableSet(nextBaseWords), compile(nextBaseWords), userDictionaryPath, false, nextMultiWord, null, 0L);
+    }
+
+    private UserDictionarySnapshot withCompiledFile(Path compiledPath) {
+        try {
+            CompiledUserDictionary.Loaded loaded = CompiledUserDictionary.load(compiledPath);
+            // the automaton's words are the meaningful base words; the others never produce sub-tokens anyway
+            return new UserDictionarySnapshot(version + 1, entries, loaded.subTokens().words(), loaded.subTokens(),
+                    loaded.komoranFile(), true, loaded.multiWord(), null, 0L);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to read compiled user dictionary: " + compiledPath, e);
+        }
+    }
+
+    /**
+     * Marks a superseded snapshot released and deletes its temp file; files supplied by the caller are left alone.
+     */
+    void release() {
+        // EMPTY is shared by every extractor and starts over any number of them
+        if (this != EMPTY) released = true;
+        if (!ownsFile) return;
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ignored) {
+            // deleteOnExit is still registered
+        }
+    }
+
+    static SubTokenMatcher compile(Set<String> baseWords) {
+        return SubTokenMatcher.build(baseWords, TokenClassifier::isMeaningfulWord);
+    }
+
+    static String baseWordOf(String entry) {
+        return entry.trim().split("\\s+")[0];
+    }
+
+    /** Whether the word of a KOMORAN entry (the part before the tag's tab) contains a space. */
+    static boolean isMultiWordEntry(String entry) {
+        String trimmed = entry.trim();
+        int tab = trimmed.indexOf('\t');
+        int wordEnd = tab < 0 ? trimmed.length() : tab;
+        for (int i = 0; i < wordEnd; i++) {
+            if (trimmed.charAt(i) == ' ') return true;
+        }
+        return false;
+    }
+
+    static String normalizeEntry(String entry) {
+        if (entry == null) return null;
+        String trimmed = entry.trim();
+        if (trimmed.isEmpty()) return null;
+        if (trimmed.contains("\t") || trimmed.contains(" ")) return trimmed;
+        return trimmed + "\tNNP";
+    }
+}
@@ -0,0 +1,85 @@
+package com.rothem.tree.textfeature;
+
+import com.rothem.tree.textfeature.data.DictionaryCommitResult;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Stages user dictionary additions and removals and applies them in one pass on {@link #commit()}.
+ * Extraction keeps using the previous dictionary until the commit publishes the new one.
+ *
+ * <p>Operations on the same word are resolved in order: the last {@code add} or {@code remove} wins.
+ * A transaction is meant for a single thread; concurrent commits on one extractor are serialized.
+ *
+ * @see TextFeatureExtractor#editUserDictionary()
+ */
+public final class UserDictionaryTransaction {
+    private final Function<UserDictionaryTransaction, DictionaryCommitResult> committer;
+    // normalized entries keyed by base word, so a later remove can drop them without a scan
+    private final Map<String, Set<String>> additions = new LinkedHashMap<>();
+    private final Set<String> removals = new LinkedHashSet<>();
+    private boolean committed;
+
+    UserDictionaryTransaction(Function<UserDictionaryTransaction, DictionaryCommitResult> committer) {
+        this.committer = committer;
+    }
+
+    /** Stages a plain word (tagged as NNP) or an already-formatted entry (e.g. "단어\tNNP"). */
+    public UserDictionaryTransaction add(String userWord) {
+        ensureOpen();
+        String entry = UserDictionarySnapshot.normalizeEntry(userWord);
+        if (entry == null) return this;
+        additions.computeIfAbsent(UserDictionarySnapshot.baseWordOf(entry), k -> new LinkedHashSet<>()).add(entry);
+        return this;
+    }
+
+    public UserDictionaryTransaction addAll(Collection<String> userWords) {
+        for (String userWord : userWords) add(userWord);
+        return this;
+    }
+
+    /** Stages removal of every entry for the word, whatever its tag; a formatted entry is matched by its word. */
+    public UserDictionaryTransaction remove(String userWord) {
+        ensureOpen();
+        if (userWord == null || userWord.isBlank()) return this;
+        String baseWord = UserDictionarySnapshot.baseWordOf(userWord);
+        additions.remove(baseWord);
+        removals.add(baseWord);
+        return this;
+    }
+
+    public UserDictionaryTransaction removeAll(Collection<String> userWords) {
+        for (String userWord : userWords) remove(userWord);
+        return this;
+    }
+
+    /**
+     * Publishes all staged changes as one new dictionary version. A transaction can be committed once.
+     *
+     * @return the resulting version and how long the commit took
+     */
+    public DictionaryCommitResult commit() {
+        ensureOpen();
+        committed = true;
+        return committer.apply(this);
+    }
+
+    Set<String> removals() {
+        return removals;
+    }
+
+    Collection<String> additions() {
+        LinkedHashSet<String> entries = new LinkedHashSet<>();
+        for (Set<String> forWord : additions.values()) entries.addAll(forWord);
+        return entries;
+    }
+
+    private void ensureOpen() {
+        if (committed) throw new IllegalStateException("Transaction already committed");
+    }
+}
@@ -0,0 +1,60 @@
+package com.rothem.tree.textfeature;
+
+/**
+ * Open-addressing set of (word, begin index) pairs, used to skip tokens already seen at the same position.
+ * Keys are primitive longs; the word is kept only to confirm a hash match.
+ */
+final class WordPositionSet {
+    private long[] keys;
+    private String[] words;
+    private int size;
+
+    WordPositionSet(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(4, expected * 2 - 1)) << 1;
+        keys = new long[capacity];
+        words = new String[capacity];
+    }
+
+    boolean contains(String word, int position) {
+        long key = key(word, position);
+        int mask = keys.length - 1;
+        for (int i = slot(key, mask); words[i] != null; i = (i + 1) & mask) {
+            if (keys[i] == key && words[i].equals(word)) return true;
+        }
+        return false;
+    }
+
+    void add(String word, int position) {
+        if ((size + 1) * 2 > keys.length) grow();
+        if (insert(keys, words, key(word, position), word)) size++;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        String[] oldWords = words;
+        keys = new long[oldKeys.length * 2];
+        words = new String[oldWords.length * 2];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldWords[i] != null) insert(keys, words, oldKeys[i], oldWords[i]);
+        }
+    }
+
+    private static boolean insert(long[] keys, String[] words, long key, String word) {
+        int mask = keys.length - 1;
+        int i = slot(key, mask);
+        for (; words[i] != null; i = (i + 1) & mask) {
+            if (keys[i] == key && words[i].equals(word)) return false;
+        }
+        keys[i] = key;
+        words[i] = word;
+        return true;
+    }
+
+    private static long key(String word, int position) {
+        return ((long) position << 32) | (word.hashCode() & 0xFFFFFFFFL);
+    }
+
+    private static int slot(long key, int mask) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+    }
+}
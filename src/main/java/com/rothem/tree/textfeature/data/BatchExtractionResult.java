@@ -0,0 +1,22 @@
+package com.rothem.tree.textfeature.data;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Results of a batch extraction, in input order.
+ * A failed item gets an empty result at its index and its exception in {@code failures}, keyed by index.
+ */
+@Getter
+@AllArgsConstructor
+public class BatchExtractionResult {
+    private List<KeywordExtractionResult> results;
+    private Map<Integer, Throwable> failures;
+
+    public boolean hasFailures() {
+        return !failures.isEmpty();
+    }
+}
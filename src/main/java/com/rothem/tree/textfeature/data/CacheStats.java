@@ -0,0 +1,21 @@
+package com.rothem.tree.textfeature.data;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Point-in-time counters of an extractor's result cache.
+ */
+@Getter
+@AllArgsConstructor
+public class CacheStats {
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long size;
+
+    public double hitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+}
@@ -0,0 +1,72 @@
+package com.rothem.tree.textfeature.data;
+
+import com.rothem.tree.textfeature.RegexExtractorKey;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read-only nouns and regex matches of one text, for callers that keep many results around.
+ * Regex matches sit in an {@link EnumMap} holding only the keys that matched; every other key
+ * answers the shared empty list. {@link #toKeywordExtractionResult()} converts to the classic form.
+ * {@link #isDegraded()} has the meaning of {@link KeywordExtractionResult#isDegraded()}.
+ */
+public final class CompactKeywordResult {
+    public static final CompactKeywordResult EMPTY =
+            new CompactKeywordResult(List.of(), new EnumMap<>(RegexExtractorKey.class));
+
+    private final List<String> nouns;
+    private final EnumMap<RegexExtractorKey, List<String>> regex;
+    private final boolean degraded;
+
+    public CompactKeywordResult(List<String> nouns, EnumMap<RegexExtractorKey, List<String>> regex) {
+        this(nouns, regex, false);
+    }
+
+    /** Takes ownership of {@code regex}, which must not hold empty lists. */
+    public CompactKeywordResult(List<String> nouns, EnumMap<RegexExtractorKey, List<String>> regex, boolean degraded) {
+        this.nouns = List.copyOf(nouns);
+        regex.replaceAll((key, values) -> Collections.unmodifiableList(values));
+        this.regex = regex;
+        this.degraded = degraded;
+    }
+
+    public List<String> getNouns() {
+        return nouns;
+    }
+
+    /** Matches of {@code key} in text order; the shared empty list when there are none. */
+    public List<String> getRegex(RegexExtractorKey key) {
+        return regex.getOrDefault(key, List.of());
+    }
+
+    /** Keys that matched, in {@link RegexExtractorKey} order. */
+    public Map<RegexExtractorKey, List<String>> getRegex() {
+        return Collections.unmodifiableMap(regex);
+    }
+
+    public boolean isDegraded() {
+        return degraded;
+    }
+
+    public int regexMatchCount() {
+        int count = 0;
+        for (List<String> values : regex.values()) {
+            count += values.size();
+        }
+        return count;
+    }
+
+    /** Mutable copy keyed by {@link RegexExtractorKey#keyName()}, with every key present, as {@code extractKeywords} returns. */
+    public KeywordExtractionResult toKeywordExtractionResult() {
+        Map<String, List<String>> byName = new LinkedHashMap<>();
+        for (RegexExtractorKey key : RegexExtractorKey.values()) {
+            byName.put(key.keyName(), new ArrayList<>(getRegex(key)));
+        }
+        return new KeywordExtractionResult(new ArrayList<>(nouns), byName, null, null, degraded);
+    }
+}
@@ -0,0 +1,17 @@
+package com.rothem.tree.textfeature.data;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Outcome of a user dictionary commit. {@code changed} is false when the staged changes left the dictionary as it was.
+ * {@code elapsedNanos} covers building and publishing the new version; each pooled analyzer loads it on its next use.
+ */
+@Getter
+@AllArgsConstructor
+public class DictionaryCommitResult {
+    private long version;
+    private int entryCount;
+    private boolean changed;
+    private long elapsedNanos;
+}
@@ -0,0 +1,18 @@
+package com.rothem.tree.textfeature.data;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Point-in-time counters of an extractor's dictionary overlays. {@code estimatedBytes} is the approximate
+ * cost of the loaded overlays: their entries and automata, their files, and KOMORAN's parsed copies of those
+ * files in the analyzers holding them.
+ */
+@Getter
+@AllArgsConstructor
+public class DictionaryOverlayStats {
+    private int loaded;
+    private long estimatedBytes;
+    private long loads;
+    private long evictions;
+}
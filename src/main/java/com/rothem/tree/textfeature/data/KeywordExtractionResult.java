@@ -8,6 +8,15 @@ import lombok.Setter;
 import java.util.List;
 import java.util.Map;
 
+/**
+ * Nouns and regex matches of one text. When the extractor was built with {@code includeOffsets(true)},
+ * {@code nounSpans} and {@code regexSpans} hold the {@code [start, end)} offset of each noun (its first
+ * occurrence, {@code {-1, -1}} when it cannot be located) and of each regex match, in the same order;
+ * otherwise they are {@code null}.
+ *
+ * <p>{@code degraded} is set when the input exceeded the extractor's size or time budget and some or all of
+ * it was tokenized without KOMORAN; such results are not cached and are worth re-processing offline.
+ */
 @Getter
 @Setter
 @NoArgsConstructor
@@ -15,4 +24,16 @@ import java.util.Map;
 public class KeywordExtractionResult {
     private List<String> nouns;
     private Map<String, List<String>> regex;
+    private List<int[]> nounSpans;
+    private Map<String, List<int[]>> regexSpans;
+    private boolean degraded;
+
+    public KeywordExtractionResult(List<String> nouns, Map<String, List<String>> regex) {
+        this(nouns, regex, null, null, false);
+    }
+
+    public KeywordExtractionResult(List<String> nouns, Map<String, List<String>> regex,
+                                   List<int[]> nounSpans, Map<String, List<int[]>> regexSpans) {
+        this(nouns, regex, nounSpans, regexSpans, false);
+    }
 }
@@ -0,0 +1,16 @@
+package com.rothem.tree.textfeature.data;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * A noun with its ranking score, its frequency in the text and its document frequency in the corpus table.
+ */
+@Getter
+@AllArgsConstructor
+public class RankedKeyword {
+    private String keyword;
+    private double score;
+    private int termFrequency;
+    private int documentFrequency;
+}
@@ -0,0 +1,19 @@
+package com.rothem.tree.textfeature.data;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Output of a single {@code RegexExtractor.scan} pass: the accepted matches per key,
+ * their {@code [start, end)} spans in the same order, and the spans that noun extraction must skip.
+ */
+@Getter
+@AllArgsConstructor
+public class RegexScanResult {
+    private Map<String, List<String>> matches;
+    private Map<String, List<int[]>> matchSpans;
+    private List<int[]> occupiedSpans;
+}
@@ -0,0 +1,136 @@
+package com.rothem.tree.textfeature;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class BulkIndexerTest {
+
+    @Test
+    public void testDirectoryModeIndexesNamesAndTextContents(@TempDir Path tempDir) throws Exception {
+        Path docs = Files.createDirectories(tempDir.resolve("docs/sub"));
+        Files.writeString(docs.resolve("memo.txt"), "전화번호는 010-1234-5678입니다.\n".repeat(100), StandardCharsets.UTF_8);
+        Files.write(tempDir.resolve("docs/미래보고서_991231.pptx"), new byte[]{1, 2, 3});
+        Path out = tempDir.resolve("out.jsonl");
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+        int exitCode = BulkIndexer.run(new String[]{"--dir", tempDir.resolve("docs").toString(), "--out", out.toString(),
+                "--threads", "2"}, System.out, new PrintStream(err, true, StandardCharsets.UTF_8));
+
+        assertThat(exitCode).isZero();
+        List<String> lines = Files.readAllLines(out, StandardCharsets.UTF_8);
+        assertThat(lines).hasSize(2);
+        String memo = lines.stream().filter(line -> line.contains("\"sub/memo.txt\"")).findFirst().orElseThrow();
+        assertThat(Jsonl.field(memo, "filenameTokens")).isEqualTo("[\"memo\",\"txt\"]");
+        assertThat(Jsonl.field(memo, "regex")).contains("010-1234-5678");
+        String slides = lines.stream().filter(line -> line.contains(".pptx")).findFirst().orElseThrow();
+        assertThat(Jsonl.field(slides, "nouns")).isNull();
+        assertThat(err.toString(StandardCharsets.UTF_8)).contains("indexed 2 inputs (0 failed)", "analyze");
+    }
+
+    @Test
+    public void testJsonlModeKeepsIdsAndReportsBadRecords(@TempDir Path tempDir) throws Exception {
+        Path in = tempDir.resolve("in.jsonl");
+        Files.writeString(in, """
+                {"id": "a-1", "text": "전화번호는 010-1234-5678입니다."}
+                {"meta": {"tags": ["}"]}, "text": "회의 \\"일정\\" 공유", "id": 2}
+
+                not json
+                """, StandardCharsets.UTF_8);
+        Path out = tempDir.resolve("out.jsonl");
+
+        int exitCode = BulkIndexer.run(new String[]{"--jsonl", in.toString(), "--out", out.toString(), "--threads", "1"},
+                System.out, new PrintStream(new ByteArrayOutputStream(), true, StandardCharsets.UTF_8));
+
+        assertThat(exitCode).isEqualTo(1);
+        List<String> lines = Files.readAllLines(out, StandardCharsets.UTF_8);
+        assertThat(lines).hasSize(3);
+        assertThat(Jsonl.field(lines.get(0), "id")).isEqualTo("a-1");
+        assertThat(Jsonl.field(lines.get(0), "regex")).contains("010-1234-5678");
+        assertThat(Jsonl.field(lines.get(1), "id")).isEqualTo("2");
+        assertThat(Jsonl.field(lines.get(1), "nouns")).contains("회의");
+        assertThat(Jsonl.field(lines.get(2), "line")).isEqualTo("4");
+        assertThat(Jsonl.field(lines.get(2), "error")).contains("Invalid JSON");
+    }
+
+    @Test
+    public void testEmptyInputsAreNotErrors(@TempDir Path tempDir) throws Exception {
+        Path docs = Files.createDirectories(tempDir.resolve("docs"));
+        Files.writeString(docs.resolve("empty.txt"), "", StandardCharsets.UTF_8);
+        Path dirOut = tempDir.resolve("dir-out.jsonl");
+        Path jsonl = Files.writeString(tempDir.resolve("empty.jsonl"), "", StandardCharsets.UTF_8);
+        Path jsonlOut = tempDir.resolve("jsonl-out.jsonl");
+        PrintStream err = new PrintStream(new ByteArrayOutputStream(), true, StandardCharsets.UTF_8);
+
+        int dirExitCode = BulkIndexer.run(new String[]{"--dir", docs.toString(), "--out", dirOut.toString(),
+                "--threads", "1"}, System.out, err);
+        int jsonlExitCode = BulkIndexer.run(new String[]{"--jsonl", jsonl.toString(), "--out", jsonlOut.toString(),
+                "--threads", "1"}, System.out, err);
+
+        assertThat(dirExitCode).isZero();
+        List<String> lines = Files.readAllLines(dirOut, StandardCharsets.UTF_8);
+        assertThat(lines).hasSize(1);
+        assertThat(Jsonl.field(lines.get(0), "error")).isNull();
+        assertThat(Jsonl.field(lines.get(0), "nouns")).isEqualTo("[]");
+        assertThat(jsonlExitCode).isZero();
+        assertThat(Files.readAllLines(jsonlOut, StandardCharsets.UTF_8)).isEmpty();
+    }
+
+    @Test
+    @Timeout(60)
+    public void testWriteFailureStopsInsteadOfHanging(@TempDir Path tempDir) throws Exception {
+        // about 64 lines fill the output buffer; the queue holds 128 tasks, so the reader is still blocked on it
+        String id = "x".repeat(1 << 14);
+        Path in = tempDir.resolve("in.jsonl");
+        Files.writeString(in, ("{\"id\": \"" + id + "\", \"text\": \"회의\"}\n").repeat(400), StandardCharsets.UTF_8);
+        OutputStream failing = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("disk full");
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                throw new IOException("disk full");
+            }
+        };
+
+        assertThatThrownBy(() -> BulkIndexer.run(new String[]{"--jsonl", in.toString(), "--threads", "2"},
+                failing, new PrintStream(new ByteArrayOutputStream(), true, StandardCharsets.UTF_8)))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("disk full");
+    }
+
+    @Test
+    public void testJsonlFieldParsing() {
+        String line = "{\"a\": {\"b\": [1, \"]\"]}, \"text\": \"x\\ty\\u0041\", \"n\": null}";
+
+        assertThat(Jsonl.field(line, "text")).isEqualTo("x\tyA");
+        assertThat(Jsonl.field(line, "a")).isEqualTo("{\"b\": [1, \"]\"]}");
+        assertThat(Jsonl.field(line, "n")).isNull();
+        assertThat(Jsonl.field(line, "missing")).isNull();
+        assertThatThrownBy(() -> Jsonl.field("[1]", "a")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testUsageErrors() throws Exception {
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+        int exitCode = BulkIndexer.run(new String[]{"--threads", "2"}, System.out, new PrintStream(err, true, StandardCharsets.UTF_8));
+
+        assertThat(exitCode).isEqualTo(2);
+        assertThat(err.toString(StandardCharsets.UTF_8)).contains("usage: BulkIndexer");
+    }
+}
@@ -0,0 +1,26 @@
+package com.rothem.tree.textfeature;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CacheSegmentsTest {
+
+    @Test
+    public void testCapacitiesAddUpToTheBound() {
+        for (int maxEntries = 1; maxEntries <= 300; maxEntries++) {
+            int count = CacheSegments.count(maxEntries);
+            assertThat(Integer.bitCount(count)).isEqualTo(1);
+            int total = 0;
+            for (int i = 0; i < count; i++) {
+                int capacity = CacheSegments.capacity(maxEntries, count, i);
+                assertThat(capacity).isPositive();
+                total += capacity;
+            }
+            assertThat(total).isEqualTo(maxEntries);
+        }
+        assertThat(CacheSegments.count(1)).isEqualTo(1);
+        assertThat(CacheSegments.count(8)).isEqualTo(8);
+        assertThat(CacheSegments.count(100)).isEqualTo(16);
+    }
+}
@@ -0,0 +1,99 @@
+package com.rothem.tree.textfeature;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CompiledUserDictionaryTest {
+
+    @Test
+    public void testCompiledAutomatonMatchesBuiltOne(@TempDir Path tempDir) throws Exception {
+        Path text = tempDir.resolve("userdic.txt");
+        Files.writeString(text, "테스트\tNNP\n단어\tNNG\n\n테스트용단어\tNNP\nthe\tSL\n용\tNNG\n", StandardCharsets.UTF_8);
+        Path compiled = tempDir.resolve("userdic.tfud");
+
+        CompiledUserDictionary.compile(text, compiled);
+        assertThat(CompiledUserDictionary.isCompiled(compiled)).isTrue();
+        assertThat(CompiledUserDictionary.isCompiled(text)).isFalse();
+
+        CompiledUserDictionary.Loaded loaded = CompiledUserDictionary.load(compiled);
+        SubTokenMatcher built = SubTokenMatcher.build(List.of("테스트", "단어", "테스트용단어", "the", "용"),
+                TokenClassifier::isMeaningfulWord);
+
+        assertThat(loaded.subTokens().words()).containsExactlyElementsOf(built.words());
+        assertThat(subTokens(loaded.subTokens(), "테스트용단어")).isEqualTo(subTokens(built, "테스트용단어"));
+        assertThat(Files.readString(loaded.komoranFile(), StandardCharsets.UTF_8))
+                .isEqualTo(Files.readString(text, StandardCharsets.UTF_8));
+        assertThat(loaded.multiWord()).isFalse();
+    }
+
+    @Test
+    public void testMultiWordEntriesAreDetected(@TempDir Path tempDir) throws Exception {
+        Path text = tempDir.resolve("userdic.txt");
+        Files.writeString(text, "테스트 \tNNP\r\n  단어\tNN G\n하이퍼 그로스\tNNP\n", StandardCharsets.UTF_8);
+        Path compiled = tempDir.resolve("userdic.tfud");
+        CompiledUserDictionary.compile(text, compiled);
+
+        assertThat(CompiledUserDictionary.load(compiled).multiWord()).isTrue();
+        assertThat(UserDictionarySnapshot.isMultiWordEntry("하이퍼 그로스\tNNP")).isTrue();
+        assertThat(UserDictionarySnapshot.isMultiWordEntry(" 단어\tNN G")).isFalse();
+    }
+
+    @Test
+    public void testMultiWordFlagAgreesWithTextDictionary(@TempDir Path tempDir) throws Exception {
+        for (String entry : List.of("word \tNNP", "\tword\tNNP", "하이퍼 그로스\tNNP", "단어\tNN G", "단어 \r")) {
+            Path text = tempDir.resolve("userdic.txt");
+            Files.writeString(text, entry + "\n", StandardCharsets.UTF_8);
+            Path compiled = tempDir.resolve("userdic.tfud");
+            CompiledUserDictionary.compile(text, compiled);
+
+            assertThat(CompiledUserDictionary.load(compiled).multiWord()).as(entry)
+                    .isEqualTo(UserDictionarySnapshot.isMultiWordEntry(entry))
+                    .isEqualTo(UserDictionarySnapshot.EMPTY.withFile(text).hasMultiWordEntries());
+        }
+    }
+
+    @Test
+    public void testTextDictionaryStartingWithMagicIsNotCompiled(@TempDir Path tempDir) throws Exception {
+        Path text = tempDir.resolve("userdic.txt");
+        Files.writeString(text, "TFUD\tSL\n하이퍼그로스플랜\tNNP\n", StandardCharsets.UTF_8);
+        assertThat(CompiledUserDictionary.isCompiled(text)).isFalse();
+        assertThat(UserDictionarySnapshot.EMPTY.withFile(text).baseWords()).containsExactly("TFUD", "하이퍼그로스플랜");
+
+        Path compiled = tempDir.resolve("userdic.tfud");
+        CompiledUserDictionary.compile(text, compiled);
+        Path truncated = tempDir.resolve("truncated.tfud");
+        byte[] bytes = Files.readAllBytes(compiled);
+        Files.write(truncated, Arrays.copyOf(bytes, bytes.length - 1));
+        assertThat(CompiledUserDictionary.isCompiled(compiled)).isTrue();
+        assertThat(CompiledUserDictionary.isCompiled(truncated)).isFalse();
+    }
+
+    @Test
+    public void testExtractorAcceptsCompiledDictionary(@TempDir Path tempDir) throws Exception {
+        Path text = tempDir.resolve("userdic.txt");
+        Files.writeString(text, "하이퍼그로스플랜\tNNP\n", StandardCharsets.UTF_8);
+        Path compiled = tempDir.resolve("userdic.tfud");
+        CompiledUserDictionary.compile(text, compiled);
+
+        TextFeatureExtractor extractor = TextFeatureExtractor.builder().poolSize(1).build();
+        extractor.setUserDictionaryPath(compiled.toString());
+
+        assertThat(extractor.extractKeywords("우리 팀은 하이퍼그로스플랜을 준비 중입니다.").getNouns())
+                .contains("하이퍼그로스플랜");
+    }
+
+    private static List<String> subTokens(SubTokenMatcher matcher, String word) {
+        List<String> found = new ArrayList<>();
+        matcher.forEachSubToken(word, (base, offset) -> found.add(base + "@" + offset));
+        return found;
+    }
+}
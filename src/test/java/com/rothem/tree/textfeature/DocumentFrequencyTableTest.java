@@ -0,0 +1,87 @@
+package com.rothem.tree.textfeature;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import com.rothem.tree.textfeature.data.RankedKeyword;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+public class DocumentFrequencyTableTest {
+
+    @Test
+    public void testBuildAndLookUp(@TempDir Path tempDir) throws Exception {
+        Path file = tempDir.resolve("df.bin");
+        new DocumentFrequencyTableBuilder()
+                .addDocument(List.of("회의", "일정", "회의"))
+                .addDocument(List.of("회의", "보고서"))
+                .addDocument(List.of("회의", "예산", "보고서", "결산"))
+                .write(file);
+
+        DocumentFrequencyTable table = DocumentFrequencyTable.open(file);
+
+        assertThat(table.documentCount()).isEqualTo(3L);
+        assertThat(table.termCount()).isEqualTo(5);
+        // distinct terms per document: 2, 2 and 4
+        assertThat(table.averageDocumentLength()).isEqualTo(8.0 / 3);
+        assertThat(table.documentFrequency("회의")).isEqualTo(3);
+        assertThat(table.documentFrequency("보고서")).isEqualTo(2);
+        assertThat(table.documentFrequency("없는단어")).isZero();
+    }
+
+    @Test
+    public void testMinDocumentFrequencyPrunesRareTerms(@TempDir Path tempDir) throws Exception {
+        Path file = tempDir.resolve("df.bin");
+        new DocumentFrequencyTableBuilder().minDocumentFrequency(2)
+                .addDocument(List.of("회의", "일정"))
+                .addDocument(List.of("회의", "보고서"))
+                .write(file);
+
+        DocumentFrequencyTable table = DocumentFrequencyTable.open(file);
+        assertThat(table.termCount()).isEqualTo(1);
+        assertThat(table.documentFrequency("일정")).isZero();
+    }
+
+    @Test
+    public void testRareFrequentNounRanksFirst(@TempDir Path tempDir) throws Exception {
+        Path file = tempDir.resolve("df.bin");
+        DocumentFrequencyTableBuilder builder = new DocumentFrequencyTableBuilder();
+        for (int i = 0; i < 100; i++) {
+            builder.addDocument(i < 2 ? List.of("회의", "예산") : List.of("회의", "일정"));
+        }
+        builder.write(file);
+        DocumentFrequencyTable table = DocumentFrequencyTable.open(file);
+
+        List<RankedKeyword> bm25 = KeywordRanker.builder(table).build()
+                .rank(List.of("회의", "일정", "예산"), Map.of("예산", 2), 2);
+        assertThat(bm25).extracting(RankedKeyword::getKeyword).containsExactly("예산", "일정");
+        assertThat(bm25.get(0).getTermFrequency()).isEqualTo(3);
+        assertThat(bm25.get(0).getDocumentFrequency()).isEqualTo(2);
+
+        List<RankedKeyword> tfIdf = KeywordRanker.builder(table).scheme(KeywordRanker.Scheme.TF_IDF).build()
+                .rank(List.of("회의", "일정", "예산"), Map.of(), 3);
+        assertThat(tfIdf).extracting(RankedKeyword::getKeyword).containsExactly("예산", "일정", "회의");
+    }
+
+    @Test
+    public void testDocumentLengthCountsDistinctNounsOnBothSides(@TempDir Path tempDir) throws Exception {
+        Path file = tempDir.resolve("df.bin");
+        new DocumentFrequencyTableBuilder()
+                .addDocument(List.of("회의", "일정", "회의", "회의"))
+                .addDocument(List.of("회의", "보고서"))
+                .write(file);
+        DocumentFrequencyTable table = DocumentFrequencyTable.open(file);
+        assertThat(table.averageDocumentLength()).isEqualTo(2.0);
+
+        // two distinct nouns, as long as the average document, so the length normalization is neutral
+        List<RankedKeyword> ranked = KeywordRanker.builder(table).build()
+                .rank(List.of("회의", "예산"), Map.of("회의", 3), 2);
+        RankedKeyword unseen = ranked.stream().filter(k -> k.getKeyword().equals("예산")).findFirst().orElseThrow();
+        assertThat(unseen.getScore()).isCloseTo(Math.log(1 + 2.5 / 0.5), within(1e-9));
+    }
+}
@@ -0,0 +1,80 @@
+package com.rothem.tree.textfeature;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FeatureHasherTest {
+
+    @Test
+    public void testEntriesAreSortedAndCollisionsSummed() {
+        FeatureHasher hasher = FeatureHasher.builder().dimension(2).termFrequency(true).build();
+        FeatureVector out = new FeatureVector(1);
+
+        hasher.hashInto(List.of("회의", "일정", "문의", "보고서"), Map.of("회의", 2),
+                Map.of(RegexExtractorKey.PHONE_KR.keyName(), List.of("010-1234-5678")), out);
+
+        assertThat(out.size()).isBetween(1, 2);
+        float total = 0;
+        for (int i = 0; i < out.size(); i++) {
+            if (i > 0) assertThat(out.index(i)).isGreaterThan(out.index(i - 1));
+            total += out.value(i);
+        }
+        // 회의 counts three times, the other nouns and the phone key once each
+        assertThat(total).isEqualTo(7.0f);
+    }
+
+    @Test
+    public void testNgramsAndReuse() {
+        FeatureHasher unigrams = FeatureHasher.builder().build();
+        FeatureHasher trigrams = FeatureHasher.builder().maxNgram(3).build();
+        FeatureVector out = new FeatureVector();
+
+        trigrams.hashInto(List.of("a", "b", "c"), null, Map.of(), out);
+        // 3 nouns, 2 bigrams, 1 trigram
+        assertThat(out.size()).isEqualTo(6);
+
+        out.clear();
+        unigrams.hashInto(List.of("a", "b", "c"), null, Map.of(), out);
+        assertThat(out.size()).isEqualTo(3);
+        assertThat(out.indices()).contains(unigrams.nounIndex("a"), unigrams.nounIndex("b"), unigrams.nounIndex("c"));
+        assertThat(unigrams.nounIndex("a")).isEqualTo(trigrams.nounIndex("a"));
+    }
+
+    @Test
+    public void testExtractorNgramsRunOverTheNounList() {
+        TextFeatureExtractor extractor = TextFeatureExtractor.builder().poolSize(1).build();
+        FeatureHasher bigrams = FeatureHasher.builder().maxNgram(2).build();
+        String text = "회의 일정 공유. 회의 일정 확인.";
+        List<String> nouns = extractor.extractKeywords(text).getNouns();
+        FeatureVector fromText = new FeatureVector();
+        FeatureVector fromList = new FeatureVector();
+
+        extractor.extractFeatures(text, bigrams, fromText);
+        bigrams.hashInto(nouns, null, Map.of(), fromList);
+
+        assertThat(nouns).contains("회의", "일정").doesNotHaveDuplicates();
+        // the repeated phrase adds no second bigram: each noun and each adjacent pair in the list once
+        assertThat(fromText.size()).isEqualTo(2 * nouns.size() - 1);
+        assertThat(Arrays.copyOf(fromText.indices(), fromText.size()))
+                .containsExactly(Arrays.copyOf(fromList.indices(), fromList.size()));
+    }
+
+    @Test
+    public void testExtractorWritesIntoCallerBuffer() {
+        TextFeatureExtractor extractor = TextFeatureExtractor.builder().poolSize(1).build();
+        FeatureHasher hasher = FeatureHasher.builder().termFrequency(true).build();
+        FeatureVector out = new FeatureVector();
+
+        extractor.extractFeatures("회의 일정은 010-1234-5678 로 문의하세요.", hasher, out);
+        int size = out.size();
+        assertThat(size).isPositive();
+
+        extractor.extractFeatures("", hasher, out);
+        assertThat(out.size()).isZero();
+    }
+}
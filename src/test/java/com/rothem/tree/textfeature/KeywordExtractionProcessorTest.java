@@ -0,0 +1,114 @@
+package com.rothem.tree.textfeature;
+
+import com.rothem.tree.textfeature.data.KeywordExtractionResult;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class KeywordExtractionProcessorTest {
+    private static final int TEXTS = 60;
+
+    @Test
+    public void testOrderedDeliveryWithBoundedUpstreamDemand() throws Exception {
+        TextFeatureExtractor extractor = TextFeatureExtractor.builder().poolSize(2).build();
+        KeywordExtractionProcessor processor = extractor.processor().maxConcurrency(2).bufferSize(4).ordered(true).build();
+
+        List<Integer> received = run(processor, 6);
+
+        assertThat(received).hasSize(TEXTS);
+        for (int i = 0; i < TEXTS; i++) {
+            assertThat(received.get(i)).isEqualTo(i);
+        }
+        assertThat(processor.queueDepth()).isZero();
+        assertThat(processor.failureCount()).isZero();
+    }
+
+    @Test
+    public void testSourceKeyKeepsPerSourceOrder() throws Exception {
+        TextFeatureExtractor extractor = TextFeatureExtractor.builder().poolSize(3).build();
+        KeywordExtractionProcessor processor = extractor.processor()
+                .maxConcurrency(3)
+                .bufferSize(3)
+                .sourceKey(text -> text.charAt(0))
+                .build();
+
+        List<Integer> received = run(processor, 6);
+
+        assertThat(received).hasSize(TEXTS);
+        Map<Integer, Integer> lastBySource = new HashMap<>();
+        for (int n : received) {
+            Integer last = lastBySource.put(n % 3, n);
+            if (last != null) assertThat(n).isGreaterThan(last);
+        }
+    }
+
+    /**
+     * Publishes {@link #TEXTS} texts to {@code processor}, requesting one result at a time, and returns the
+     * text numbers in delivery order. Fails if more texts were ever requested than the processor may hold.
+     */
+    private static List<Integer> run(KeywordExtractionProcessor processor, int capacity) throws Exception {
+        AtomicLong requested = new AtomicLong();
+        AtomicInteger sent = new AtomicInteger();
+        processor.onSubscribe(new Flow.Subscription() {
+            @Override
+            public synchronized void request(long n) {
+                requested.addAndGet(n);
+                for (long i = 0; i < n && sent.get() < TEXTS; i++) {
+                    int k = sent.getAndIncrement();
+                    processor.onNext((k % 3) + "번 채널 회의 " + k + "건 010-1234-" + String.format("%04d", k));
+                    if (sent.get() == TEXTS) processor.onComplete();
+                }
+            }
+
+            @Override
+            public void cancel() {
+            }
+        });
+
+        List<Integer> received = new ArrayList<>();
+        List<Long> overRequests = new ArrayList<>();
+        CountDownLatch done = new CountDownLatch(1);
+        processor.subscribe(new Flow.Subscriber<>() {
+            private Flow.Subscription subscription;
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                this.subscription = subscription;
+                subscription.request(1);
+            }
+
+            @Override
+            public void onNext(KeywordExtractionResult result) {
+                String phone = result.getRegex().get(RegexExtractorKey.PHONE_KR.keyName()).get(0);
+                received.add(Integer.parseInt(phone.substring(phone.lastIndexOf('-') + 1)));
+                if (requested.get() > received.size() + capacity) overRequests.add(requested.get());
+                subscription.request(1);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                done.countDown();
+            }
+
+            @Override
+            public void onComplete() {
+                done.countDown();
+            }
+        });
+
+        assertThat(done.await(60, TimeUnit.SECONDS)).isTrue();
+        assertThat(overRequests).isEmpty();
+        return received;
+    }
+}
@@ -0,0 +1,104 @@
+package com.rothem.tree.textfeature;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class NumericScannerTest {
+
+    // the patterns NumericScanner replaced, kept here as the reference
+    private static final Map<RegexExtractorKey, Pattern> REFERENCE = Map.of(
+            RegexExtractorKey.SHORT_DATE_6, Pattern.compile("(?<!\\d)(\\d{6})(?!\\d)"),
+            RegexExtractorKey.DATE, Pattern.compile(
+                    "(?<!\\d)((?:19|20)\\d{2})[./-](0?[1-9]|1[0-2])[./-](0?[1-9]|[12][0-9]|3[01])(?!\\d)"),
+            RegexExtractorKey.PHONE_KR, Pattern.compile("(?<!\\d)(?:0\\d{1,2}[-\\s]?\\d{3,4}[-\\s]?\\d{4})(?!\\d)"),
+            RegexExtractorKey.PHONE_INTL, Pattern.compile(
+                    "(?<!\\d)(?:\\+\\d{1,3}[-\\s]?(?:\\d{1,4}[-\\s]?){2,4}\\d{2,4})(?!\\d)"),
+            RegexExtractorKey.ACCOUNT, Pattern.compile("(?<!\\d)(?:\\d{2,4}[-\\s‒]?){2,3}\\d{5,6}(?!\\d)"),
+            RegexExtractorKey.NUMBER, Pattern.compile(
+                    "(?<!\\d)((?:\\d{1,3}(?:,\\d{3})+)(?:\\.\\d+)?|\\d+\\.\\d+|\\d+)(?!\\d)"));
+
+    private static final String[] ALPHABETS = {
+            "0123456789-. ,/+‒\t\nab가@", "0123456789", "0120-1.,/ +", "1920013-./ ", "0123456789,.", "01-+ 2345\u000B\f\r"};
+
+    @Test
+    public void testMatchesReferencePatterns() {
+        Random random = new Random(29);
+        List<String> texts = new ArrayList<>(List.of(
+                "전화번호는 010-1234-5678이고, 계좌는 020-111-222333 입니다. +82 10 1234 5678 991332 1,234.5 3.14",
+                "1,234,5678 12,345,678.90 2024.05.01. 1999-2-29 +1-800-555-0199 02 123 4567", ""));
+        for (int i = 0; i < 20000; i++) {
+            String alphabet = ALPHABETS[random.nextInt(ALPHABETS.length)];
+            StringBuilder sb = new StringBuilder();
+            for (int j = random.nextInt(50); j > 0; j--) {
+                sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            texts.add(sb.toString());
+        }
+
+        for (String text : texts) {
+            NumericScanner scanner = NumericScanner.of(text);
+            for (Map.Entry<RegexExtractorKey, Pattern> reference : REFERENCE.entrySet()) {
+                List<String> expected = new ArrayList<>();
+                Matcher matcher = reference.getValue().matcher(text);
+                while (matcher.find()) {
+                    expected.add(matcher.start() + ":" + matcher.end() + ":" + isValid(reference.getKey(), matcher.group()));
+                }
+
+                List<String> actual = new ArrayList<>();
+                int from = 0;
+                for (long found; (found = scanner.find(reference.getKey(), from)) >= 0; ) {
+                    int start = (int) (found >>> 32);
+                    from = (int) found;
+                    actual.add(start + ":" + from + ":" + isValid(reference.getKey(), text, start, from));
+                }
+
+                assertThat(actual).as("%s in [%s]", reference.getKey(), text).isEqualTo(expected);
+            }
+        }
+    }
+
+    @Test
+    public void testSkipsTextWithoutDigits() {
+        assertThat(NumericScanner.of("숫자가 없는 문장입니다. +-./")).isSameAs(NumericScanner.NONE);
+    }
+
+    private static boolean isValid(RegexExtractorKey key, String text, int start, int end) {
+        if (key == RegexExtractorKey.SHORT_DATE_6) return NumericScanner.isValidShortDate6(text, start);
+        if (key == RegexExtractorKey.DATE) return NumericScanner.isValidDate(text, start, end);
+        return true;
+    }
+
+    private static boolean isValid(RegexExtractorKey key, String matched) {
+        if (key == RegexExtractorKey.SHORT_DATE_6) {
+            try {
+                int yy = Integer.parseInt(matched.substring(0, 2));
+                LocalDate.of(yy <= 49 ? 2000 + yy : 1900 + yy,
+                        Integer.parseInt(matched.substring(2, 4)), Integer.parseInt(matched.substring(4, 6)));
+                return true;
+            } catch (DateTimeException e) {
+                return false;
+            }
+        }
+        if (key == RegexExtractorKey.DATE) {
+            try {
+                LocalDate.parse(matched.replaceAll("[./-]", "-"), DateTimeFormatter.ofPattern("yyyy-M-d"));
+                return true;
+            } catch (DateTimeParseException e) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -3,6 +3,8 @@ package com.rothem.tree.textfeature;
 import java.util.List;
 import java.util.Map;
 
+import com.rothem.tree.textfeature.data.RegexScanResult;
+
 import org.junit.jupiter.api.Test;
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -53,4 +55,21 @@ public class RegexExtractorTest {
         assertThat(result.get(RegexExtractorKey.ACCOUNT.keyName())).contains("020-111-222333");
         assertThat(result.get(RegexExtractorKey.NUMBER.keyName())).doesNotContain("5678");
     }
+
+    @Test
+    public void testScanReturnsMatchesAndOccupiedSpansTogether() {
+        String text = "파일명은 미래보고서_991332.pptx, 전화번호는 010-1234-5678입니다.";
+        RegexScanResult scan = RegexExtractor.scan(text);
+
+        assertThat(scan.getMatches()).isEqualTo(RegexExtractor.extractRegexMatches(text));
+        assertThat(scan.getMatches().get(RegexExtractorKey.PHONE_KR.keyName())).containsExactly("010-1234-5678");
+
+        // invalid short dates still occupy their span; NUMBER matches never do
+        int shortDateStart = text.indexOf("991332");
+        int phoneStart = text.indexOf("010-1234-5678");
+        assertThat(scan.getOccupiedSpans())
+                .containsExactly(new int[]{shortDateStart, shortDateStart + 6}, new int[]{phoneStart, phoneStart + 13});
+        assertThat(RegexExtractor.getOccupiedSpans(text))
+                .containsExactly(new int[]{shortDateStart, shortDateStart + 6}, new int[]{phoneStart, phoneStart + 13});
+    }
 }
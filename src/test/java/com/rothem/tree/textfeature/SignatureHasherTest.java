@@ -0,0 +1,116 @@
+package com.rothem.tree.textfeature;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class SignatureHasherTest {
+
+    @Test
+    public void testSimilarSetsShareBandsAndDisjointSetsDoNot() {
+        SignatureHasher hasher = SignatureHasher.builder().numHashes(128).bands(32).build();
+        List<String> base = new ArrayList<>();
+        for (int i = 0; i < 100; i++) base.add("명사" + i);
+        List<String> nearCopy = new ArrayList<>(base.subList(0, 95));
+        List<String> other = new ArrayList<>();
+        for (int i = 0; i < 100; i++) other.add("단어" + i);
+
+        DocumentSignature a = new DocumentSignature(hasher);
+        DocumentSignature b = new DocumentSignature(hasher);
+        DocumentSignature c = new DocumentSignature(hasher);
+        hasher.signInto(base, Map.of(), a);
+        hasher.signInto(nearCopy, Map.of(), b);
+        hasher.signInto(other, Map.of(), c);
+
+        assertThat(a.jaccard(b)).isGreaterThan(0.8);
+        assertThat(a.jaccard(c)).isLessThan(0.1);
+        assertThat(a.simHashDistance(b)).isLessThan(a.simHashDistance(c));
+        assertThat(sharedBands(a, b)).isPositive();
+        assertThat(sharedBands(a, c)).isZero();
+    }
+
+    @Test
+    public void testSignatureIgnoresDuplicatesAndIsReusable() {
+        SignatureHasher hasher = SignatureHasher.builder().numHashes(16).bands(4).build();
+        DocumentSignature once = new DocumentSignature(hasher);
+        DocumentSignature twice = new DocumentSignature(hasher);
+
+        hasher.signInto(List.of("회의", "일정"), Map.of("phone_kr", List.of("010-1234-5678")), once);
+        hasher.signInto(List.of("일정", "회의"), Map.of("phone_kr", List.of("010-1234-5678", "010-1234-5678")), twice);
+        assertThat(twice.minHashes()).isEqualTo(once.minHashes());
+        assertThat(twice.bandKeys()).isEqualTo(once.bandKeys());
+        assertThat(twice.simHash()).isEqualTo(once.simHash());
+        assertThat(twice.featureCount()).isEqualTo(once.featureCount());
+
+        hasher.signInto(List.of(), Map.of(), twice);
+        assertThat(twice.featureCount()).isZero();
+        assertThat(twice.jaccard(once)).isZero();
+    }
+
+    @Test
+    public void testRepeatedRegexValueCountsOnceInSimHash() {
+        SignatureHasher hasher = SignatureHasher.builder().numHashes(16).bands(4).build();
+        DocumentSignature once = new DocumentSignature(hasher);
+        DocumentSignature repeated = new DocumentSignature(hasher);
+        List<String> nouns = List.of("회의", "일정", "예산");
+        String phone = "010-1234-5678";
+
+        hasher.signInto(nouns, Map.of("phone_kr", List.of(phone)), once);
+        hasher.signInto(nouns, Map.of("phone_kr", List.of(phone, phone, phone, phone, phone, phone)), repeated);
+        assertThat(repeated.simHash()).isEqualTo(once.simHash());
+        assertThat(repeated.featureCount()).isEqualTo(4);
+        assertThat(repeated.minHashes()).isEqualTo(once.minHashes());
+    }
+
+    @Test
+    public void testBandsMustDivideHashes() {
+        assertThatThrownBy(() -> SignatureHasher.builder().numHashes(10).bands(4).build())
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testSignatureMustMatchTheHasher() {
+        SignatureHasher small = SignatureHasher.builder().numHashes(16).bands(4).build();
+        SignatureHasher large = SignatureHasher.builder().numHashes(32).bands(8).build();
+        SignatureHasher fewerBands = SignatureHasher.builder().numHashes(16).bands(2).build();
+        DocumentSignature signature = new DocumentSignature(small);
+        TextFeatureExtractor extractor = TextFeatureExtractor.builder().poolSize(1).build();
+
+        assertThatThrownBy(() -> large.signInto(List.of("회의"), Map.of(), signature))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> fewerBands.signInto(List.of("회의"), Map.of(), signature))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> small.signInto(List.of("회의"), Map.of(), new DocumentSignature(large)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> extractor.extractSignature("회의 일정", large, signature))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(extractor.loadedAnalyzers()).isZero();
+    }
+
+    @Test
+    public void testExtractorSignsInOnePass() {
+        TextFeatureExtractor extractor = TextFeatureExtractor.builder().poolSize(1).build();
+        SignatureHasher hasher = SignatureHasher.builder().build();
+        DocumentSignature first = new DocumentSignature(hasher);
+        DocumentSignature second = new DocumentSignature(hasher);
+
+        extractor.extractSignature("회의 일정은 010-1234-5678 로 문의하세요.", hasher, first);
+        extractor.extractSignature("회의 일정은 010-1234-5678 로 문의하세요.", hasher, second);
+        assertThat(first.featureCount()).isPositive();
+        assertThat(first.jaccard(second)).isEqualTo(1.0);
+        assertThat(first.simHash()).isEqualTo(second.simHash());
+    }
+
+    private static int sharedBands(DocumentSignature a, DocumentSignature b) {
+        int shared = 0;
+        for (int i = 0; i < a.bandKeys().length; i++) {
+            if (a.bandKeys()[i] == b.bandKeys()[i]) shared++;
+        }
+        return shared;
+    }
+}
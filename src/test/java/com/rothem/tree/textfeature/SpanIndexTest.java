@@ -0,0 +1,50 @@
+package com.rothem.tree.textfeature;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SpanIndexTest {
+
+    @Test
+    public void testContainmentNeedsASingleSpan() {
+        SpanIndex index = SpanIndex.of(List.of(new int[]{10, 20}, new int[]{20, 30}, new int[]{0, 5}));
+
+        assertThat(index.contains(12, 18)).isTrue();
+        assertThat(index.contains(10, 20)).isTrue();
+        // covered by the union of two adjacent spans, but by neither alone
+        assertThat(index.contains(15, 25)).isFalse();
+        assertThat(index.covers(20)).isTrue();
+        assertThat(index.covers(5)).isFalse();
+        assertThat(SpanIndex.EMPTY.covers(0)).isFalse();
+    }
+
+    @Test
+    public void testMatchesLinearScan() {
+        Random random = new Random(13);
+        for (int round = 0; round < 200; round++) {
+            List<int[]> spans = new ArrayList<>();
+            int count = random.nextInt(30);
+            for (int i = 0; i < count; i++) {
+                int start = random.nextInt(100);
+                spans.add(new int[]{start, start + 1 + random.nextInt(15)});
+            }
+            SpanIndex index = SpanIndex.of(spans);
+
+            for (int start = 0; start < 120; start++) {
+                boolean covered = false;
+                for (int[] span : spans) covered |= start >= span[0] && start < span[1];
+                assertThat(index.covers(start)).isEqualTo(covered);
+
+                int end = start + 1 + random.nextInt(10);
+                boolean contained = false;
+                for (int[] span : spans) contained |= start >= span[0] && end <= span[1];
+                assertThat(index.contains(start, end)).isEqualTo(contained);
+            }
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.rothem.tree.textfeature;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SubTokenMatcherTest {
+
+    @Test
+    public void testReportsContainedBaseWordsInDictionaryOrder() {
+        List<String> baseWords = List.of("단어", "테스트", "테스트용단어", "용", "the", "스트");
+        SubTokenMatcher matcher = SubTokenMatcher.build(baseWords, TokenClassifier::isMeaningfulWord);
+
+        List<String> found = new ArrayList<>();
+        matcher.forEachSubToken("테스트용단어", (base, offset) -> found.add(base + "@" + offset));
+
+        // the word itself is skipped; the English stopword is filtered at build time
+        assertThat(found).containsExactly("단어@4", "테스트@0", "용@3", "스트@1");
+    }
+
+    @Test
+    public void testMatchesNaiveContainsScan() {
+        List<String> baseWords = List.of("ab", "b", "abc", "bca", "c", "가나", "나가", "가");
+        SubTokenMatcher matcher = SubTokenMatcher.build(baseWords, word -> true);
+
+        for (String word : List.of("abcabc", "bcab", "가나가나", "나가", "xyz", "")) {
+            List<String> expected = new ArrayList<>();
+            for (String base : baseWords) {
+                if (!base.equals(word) && word.contains(base)) expected.add(base + "@" + word.indexOf(base));
+            }
+            List<String> found = new ArrayList<>();
+            matcher.forEachSubToken(word, (base, offset) -> found.add(base + "@" + offset));
+
+            assertThat(found).isEqualTo(expected);
+        }
+    }
+}
@@ -0,0 +1,499 @@
+package com.rothem.tree.textfeature;
+
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class TextFeatureExtractorTest {
+
+    @Test
+    public void testInstanceMatchesStaticExtraction() {
+        TextFeatureExtractor extractor = TextFeatureExtractor.builder().poolSize(1).build();
+        String input = "파일명은 미래보고서_991231.pptx이고, 회의는 2024/11/27(화요일)에 열렸습니다.";
+
+        var result = extractor.extractKeywords(input);
+
+        assertThat(result.getNouns()).contains("파일", "미래", "보고서", "회의");
+        assertThat(result.getRegex().get(RegexExtractorKey.DATE.keyName())).contains("2024/11/27");
+    }
+
+    @Test
+    public void testConcurrentExtractionWithDictionaryReload() throws Exception {
+        TextFeatureExtractor extractor = TextFeatureExtractor.builder().poolSize(4).build();
+        String input = "우리 팀은 하이퍼그로스플랜을 준비 중입니다.";
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<List<String>>> futures = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                futures.add(executor.submit(() -> extractor.extractKeywords(input).getNouns()));
+                if (i == 16) {
+                    extractor.addUserDictionary(List.of("하이퍼그로스플랜"));
+                }
+            }
+            for (Future<List<String>> future : futures) {
+                assertThat(future.get()).isNotEmpty();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        // once published, every analyzer in the pool sees the new snapshot
+        for (int i = 0; i < 8; i++) {
+            assertThat(extractor.extractKeywords(input).getNouns()).contains("하이퍼그로스플랜");
+        }
+    }
+
+    @Test
+    public void testBatchExtractionKeepsInputOrder() {
+        TextFeatureExtractor extractor = TextFeatureExtractor.builder().poolSize(2).batchUnitChars(16).build();
+        List<String> inputs = List.of(
+                "200622 주요 현안 법무RM팀 v2.pptx",
+                "",
+                "전화번호는 010-1234-5678입니다.",
+                "회의는 2024/11/27에 열렸습니다.");
+
+        var batch = extractor.extractKeywordsBatch(inputs);
+        var sequential = extractor.extractKeywordsBatch(inputs, Runnable::run);
+
+        assertThat(batch.hasFailures()).isFalse();
+        assertThat(batch.getResults()).hasSize(inputs.size());
+        assertThat(batch.getResults().get(1).getNouns()).isEmpty();
+        assertThat(batch.getResults().get(2).getRegex().get(RegexExtractorKey.PHONE_KR.keyName())).containsExactly("010-1234-5678");
+        assertThat(batch.getResults().get(3).getRegex().get(RegexExtractorKey.DATE.keyName())).containsExactly("2024/11/27");
+        for (int i = 0; i < inputs.size(); i++) {
+            assertThat(batch.getResults().get(i).getNouns()).isEqualTo(sequential.getResults().get(i).getNouns());
+        }
+    }
+
+    @Test
+    public void testStreamingReportsAbsoluteOffsets(@TempDir Path tempDir) throws Exception {
+        TextFeatureExtractor extractor = TextFeatureExtractor.builder().poolSize(1).streamChunkChars(256).build();
+        String text = "회의는 2024/11/27에 열렸습니다. 전화번호는 010 1234 5678입니다. 문의는 kim@example.com 입니다.\n".repeat(40);
+        Path file = tempDir.resolve("document.txt");
+        Files.writeString(file, text, StandardCharsets.UTF_8);
+
+        List<String> regexFromReader = new ArrayList<>();
+        List<String> regexFromFile = new ArrayList<>();
+        List<String> nouns = new ArrayList<>();
+        extractor.extractKeywords(new StringReader(text), collectingSink(text, regexFromReader, nouns));
+        extractor.extractKeywords(file, StandardCharsets.UTF_8, collectingSink(text, regexFromFile, new ArrayList<>()));
+
+        assertThat(regexFromReader).hasSize(40 * 3).contains("010 1234 5678", "kim@example.com", "2024/11/27");
+        assertThat(regexFromFile).isEqualTo(regexFromReader);
+        assertThat(nouns).contains("회의", "전화번호");
+    }
+
+    @Test
+    public void testStreamingEmptyInput(@TempDir Path tempDir) throws Exception {
+        TextFeatureExtractor extractor = TextFeatureExtractor.builder().poolSize(1).build();
+        Path file = tempDir.resolve("empty.txt");
+        Files.writeString(file, "", StandardCharsets.UTF_8);
+
+        List<String> regex = new ArrayList<>();
+        List<String> nouns = new ArrayList<>();
+        extractor.extractKeywords(new StringReader(""), collectingSink("", regex, nouns));
+        extractor.extractKeywords(file, StandardCharsets.UTF_8, collectingSink("", regex, nouns));
+
+        assertThat(regex).isEmpty();
+        assertThat(nouns).isEmpty();
+    }
+
+    @Test
+    public void testResultCacheIsInvalidatedByDictionaryChange() {
+        TextFeatureExtractor extractor = TextFeatureExtractor.builder().poolSize(1).resultCacheSize(8).build();
+        String input = "우리 팀은 하이퍼그로스플랜을 준비 중입니다.";
+
+        var first = extractor.extractKeywords(input);
+        first.getNouns().clear();
+        var second = extractor.extractKeywords(input);
+
+        assertThat(second.getNouns()).isNotEmpty();
+        assertThat(extractor.cacheStats().getHits()).isEqualTo(1L);
+        assertThat(extractor.cacheStats().getMisses()).isEqualTo(1L);
+
+        extractor.addUserDictionary(List.of("하이퍼그로스플랜"));
+        var afterReload = extractor.extractKeywords(input);
+
+        assertThat(afterReload.getNouns()).contains("하이퍼그로스플랜");
+        assertThat(extractor.cacheStats().getMisses()).isEqualTo(2L);
+
+        for (int i = 0; i < 64; i++) {
+            extractor.extractKeywords("문서 " + i);
+        }
+        assertThat(extractor.cacheStats().getEvictions()).isPositive();
+        assertThat(extractor.cacheStats().getSize()).isLessThanOrEqualTo(8L);
+    }
+
+    @Test
+    public void testDictionaryTransactionCommitsOnce() {
+        TextFeatureExtractor extractor = TextFeatureExtractor.builder().poolSize(1).build();
+
+        var added = extractor.editUserDictionary()
+                .addAll(List.of("하이퍼그로스플랜", "법무RM팀", "임시용어"))
+                .remove("임시용어")
+                .commit();
+
+        assertThat(added.isChanged()).isTrue();
+        assertThat(added.getVersion()).isEqualTo(1L);
+        assertThat(added.getEntryCount()).isEqualTo(2);
+        assertThat(added.getElapsedNanos()).isPositive();
+        assertThat(extractor.extractKeywords("우리 팀은 하이퍼그로스플랜을 준비 중입니다.").getNouns())
+                .contains("하이퍼그로스플랜");
+
+        var removed = extractor.editUserDictionary().remove("하이퍼그로스플랜\tNNP").commit();
+        assertThat(removed.getVersion()).isEqualTo(2L);
+        assertThat(removed.getEntryCount()).isEqualTo(1);
+
+        var unchanged = extractor.editUserDictionary().remove("없는단어").commit();
+        assertThat(unchanged.isChanged()).isFalse();
+        assertThat(unchanged.getVersion()).isEqualTo(2L);
+    }
+
+    @Test
+    public void testModelIsLoadedLazilyAndByWarmUp() throws Exception {
+        TextFeatureExtractor extractor = TextFeatureExtractor.builder().poolSize(2).build();
+
+        TextFeatureExtractor.splitFilenameToTokens("법무RM팀_불복조서_v2.hwp");
+        RegexExtractor.extractRegexMatches("연락처 010-1234-5678");
+        assertThat(extractor.loadedAnalyzers()).isZero();
+
+        extractor.warmUp().get();
+        assertThat(extractor.loadedAnalyzers()).isEqualTo(1);
+    }
+
+    @Test
+    public void testMetricsReceiveStagesAndTotals() {
+        Map<ExtractionStage, Long> stages = new EnumMap<>(ExtractionStage.class);
+        List<int[]> totals = new ArrayList<>();
+        ExtractionMetrics metrics = new ExtractionMetrics() {
+            @Override
+            public void recordStage(ExtractionStage stage, long nanos) {
+                stages.merge(stage, nanos, Long::sum);
+            }
+
+            @Override
+            public void recordExtraction(int inputLength, int tokenCount, int nounCount, int regexMatchCount, long nanos) {
+                totals.add(new int[]{inputLength, tokenCount, nounCount, regexMatchCount});
+            }
+        };
+        TextFeatureExtractor extractor = TextFeatureExtractor.builder().poolSize(1).metrics(metrics).build();
+        String input = "회의 일정은 010-1234-5678 로 문의하세요.";
+
+        var result = extractor.extractKeywords(input);
+
+        assertThat(stages).containsKeys(ExtractionStage.REGEX_SCAN, ExtractionStage.ANALYZE, ExtractionStage.POST_PROCESS);
+        assertThat(stages).doesNotContainKey(ExtractionStage.FILENAME);
+        assertThat(totals).hasSize(1);
+        assertThat(totals.get(0)[0]).isEqualTo(input.length());
+        assertThat(totals.get(0)[2]).isEqualTo(result.getNouns().size());
+        assertThat(totals.get(0)[3]).isEqualTo(1);
+    }
+
+    @Test
+    public void testJfrEventsForExtractionAndDictionaryReload(@TempDir Path tempDir) throws Exception {
+        TextFeatureExtractor extractor = TextFeatureExtractor.builder().poolSize(1).build();
+        Path recordingFile = tempDir.resolve("extractor.jfr");
+        String input = "우리 팀은 하이퍼그로스플랜을 준비 중입니다.";
+
+        try (Recording recording = new Recording()) {
+            recording.enable("com.rothem.textfeature.Extraction").withThreshold(Duration.ZERO);
+            recording.enable("com.rothem.textfeature.DictionaryReload").withThreshold(Duration.ZERO);
+            recording.start();
+            extractor.addUserDictionary(List.of("하이퍼그로스플랜"));
+            extractor.extractKeywords(input);
+            recording.stop();
+            recording.dump(recordingFile);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(recordingFile);
+        List<String> phases = new ArrayList<>();
+        RecordedEvent extraction = null;
+        for (RecordedEvent event : events) {
+            if (event.getEventType().getName().equals("com.rothem.textfeature.DictionaryReload")) {
+                phases.add(event.getString("phase"));
+            } else if (event.getEventType().getName().equals("com.rothem.textfeature.Extraction")) {
+                extraction = event;
+            }
+        }
+        assertThat(phases).containsExactly("publish", "load");
+        assertThat(extraction).isNotNull();
+        assertThat(extraction.getInt("inputLength")).isEqualTo(input.length());
+        assertThat(extraction.getBoolean("fallback")).isFalse();
+    }
+
+    @Test
+    public void testOffsetsAreReturnedWhenRequested() {
+        TextFeatureExtractor extractor = TextFeatureExtractor.builder().poolSize(1).includeOffsets(true).resultCacheSize(8).build();
+        String input = "회의 일정은 010-1234-5678 로 문의하세요.";
+
+        for (int run = 0; run < 2; run++) {
+            var result = extractor.extractKeywords(input);
+
+            assertThat(result.getNounSpans()).hasSameSizeAs(result.getNouns());
+            for (int i = 0; i < result.getNouns().size(); i++) {
+                int[] span = result.getNounSpans().get(i);
+                assertThat(input.substring(span[0], span[1])).isEqualTo(result.getNouns().get(i));
+            }
+            int[] phone = result.getRegexSpans().get(RegexExtractorKey.PHONE_KR.keyName()).get(0);
+            assertThat(input.substring(phone[0], phone[1])).isEqualTo("010-1234-5678");
+        }
+
+        assertThat(new TextFeatureExtractor().extractKeywords(input).getNounSpans()).isNull();
+    }
+
+    @Test
+    public void testEojeolCacheRebasesOffsetsAndIsInvalidated() {
+        TextFeatureExtractor extractor = TextFeatureExtractor.builder().poolSize(1).includeOffsets(true).eojeolCacheSize(64).build();
+        String input = "회의 일정은 010 1234 5678 로 문의하세요. 회의 일정은 다음 주 회의에서 정합니다.";
+
+        for (int run = 0; run < 2; run++) {
+            var result = extractor.extractKeywords(input);
+
+            assertThat(result.getNouns()).contains("회의", "일정").doesNotContain("010", "1234", "5678");
+            for (int i = 0; i < result.getNouns().size(); i++) {
+                int[] span = result.getNounSpans().get(i);
+                assertThat(input.substring(span[0], span[1])).isEqualTo(result.getNouns().get(i));
+            }
+        }
+        assertThat(extractor.eojeolCacheStats().getHits()).isPositive();
+
+        extractor.addUserDictionary(List.of("문의하세요"));
+        long misses = extractor.eojeolCacheStats().getMisses();
+        extractor.extractKeywords("문의하세요");
+        assertThat(extractor.eojeolCacheStats().getMisses()).isEqualTo(misses + 1);
+        assertThat(extractor.eojeolCacheStats().getSize()).isEqualTo(1L);
+
+        // an entry spanning eojeols needs the whole text, so the cache is bypassed
+        extractor.addUserDictionary(List.of("다음 주\tNNG"));
+        long lookups = extractor.eojeolCacheStats().getHits() + extractor.eojeolCacheStats().getMisses();
+        extractor.extractKeywords(input);
+        assertThat(extractor.eojeolCacheStats().getHits() + extractor.eojeolCacheStats().getMisses()).isEqualTo(lookups);
+
+        TextFeatureExtractor small = TextFeatureExtractor.builder().poolSize(1).eojeolCacheSize(4).build();
+        for (int i = 0; i < 32; i++) {
+            small.extractKeywords("문서" + i + " 회의" + i);
+        }
+        assertThat(small.eojeolCacheStats().getEvictions()).isPositive();
+        assertThat(small.eojeolCacheStats().getSize()).isLessThanOrEqualTo(4L);
+    }
+
+    @Test
+    public void testSinkAndCompactResultMatchExtractKeywords() {
+        TextFeatureExtractor extractor = TextFeatureExtractor.builder().poolSize(1).build();
+        String input = "회의는 2024/11/27에 열렸습니다. 전화번호는 010-1234-5678입니다. 문의는 kim@example.com 입니다.";
+        var expected = extractor.extractKeywords(input);
+
+        List<String> nouns = new ArrayList<>();
+        List<String> regex = new ArrayList<>();
+        extractor.extractKeywords(input, collectingSink(input, regex, nouns));
+        assertThat(nouns).isEqualTo(expected.getNouns());
+        assertThat(regex).containsExactly("kim@example.com", "2024/11/27", "010-1234-5678");
+
+        var compact = extractor.extractKeywordsCompact(input);
+        assertThat(compact.getRegex()).containsOnlyKeys(RegexExtractorKey.DATE, RegexExtractorKey.EMAIL, RegexExtractorKey.PHONE_KR);
+        assertThat(compact.getRegex(RegexExtractorKey.URL)).isSameAs(compact.getRegex(RegexExtractorKey.ACCOUNT));
+        assertThat(compact.regexMatchCount()).isEqualTo(3);
+        assertThat(compact.toKeywordExtractionResult().getRegex()).isEqualTo(expected.getRegex());
+        assertThat(compact.toKeywordExtractionResult().getNouns()).isEqualTo(expected.getNouns());
+        assertThat(extractor.extractUniqueKeywords(input)).containsAll(expected.getNouns()).contains("010-1234-5678");
+    }
+
+    @Test
+    public void testExtractionOptionsSelectStages() {
+        String input = "회의는 2024/11/27에 열렸습니다. 전화번호는 010-1234-5678입니다. 금액은 15000원입니다.";
+        TextFeatureExtractor regexOnly = TextFeatureExtractor.builder()
+                .poolSize(1)
+                .options(ExtractionOptions.REGEX_ONLY)
+                .build();
+        var regex = regexOnly.extractKeywords(input);
+        assertThat(regex.getNouns()).isEmpty();
+        assertThat(regexOnly.loadedAnalyzers()).isZero();
+
+        TextFeatureExtractor extractor = TextFeatureExtractor.builder().poolSize(1).build();
+        var full = extractor.extractKeywords(input);
+        assertThat(regex.getRegex()).isEqualTo(full.getRegex());
+        assertThat(extractor.extractKeywords(input, ExtractionOptions.NOUNS_ONLY).getNouns()).isEqualTo(full.getNouns());
+
+        ExtractionOptions numbersOnly = ExtractionOptions.builder()
+                .regexKeys(RegexExtractorKey.NUMBER)
+                .nouns(false)
+                .build();
+        var numbers = extractor.extractKeywordsCompact(input, numbersOnly);
+        assertThat(numbers.getRegex()).containsOnlyKeys(RegexExtractorKey.NUMBER);
+        assertThat(numbers.getRegex(RegexExtractorKey.NUMBER))
+                .isEqualTo(full.getRegex().get(RegexExtractorKey.NUMBER.keyName()));
+    }
+
+    @Test
+    public void testFeatureSignatureAndRankingHonourExtractorOptions(@TempDir Path tempDir) throws Exception {
+        String input = "회의는 2024/11/27에 열렸습니다. 전화번호는 010-1234-5678입니다.";
+        TextFeatureExtractor regexOnly = TextFeatureExtractor.builder()
+                .poolSize(1)
+                .options(ExtractionOptions.REGEX_ONLY)
+                .build();
+        Path file = tempDir.resolve("df.bin");
+        new DocumentFrequencyTableBuilder().addDocument(List.of("회의")).write(file);
+        KeywordRanker ranker = KeywordRanker.builder(DocumentFrequencyTable.open(file)).build();
+
+        FeatureVector features = regexOnly.extractFeatures(input, FeatureHasher.builder().build(), new FeatureVector());
+        SignatureHasher hasher = SignatureHasher.builder().build();
+        DocumentSignature signature = regexOnly.extractSignature(input, hasher, new DocumentSignature(hasher));
+        assertThat(features.size()).isPositive();
+        assertThat(signature.featureCount()).isEqualTo(regexOnly.extractUniqueKeywords(input).size());
+        assertThat(regexOnly.rankKeywords(input, ranker, 5)).isEmpty();
+        assertThat(regexOnly.loadedAnalyzers()).isZero();
+    }
+
+    @Test
+    public void testOversizedInputIsDegraded() {
+        String input = "법무팀의 불복조서를 2024/11/27에 제출했습니다. 담당자 연락처는 010-1234-5678입니다.";
+        TextFeatureExtractor bySize = TextFeatureExtractor.builder()
+                .poolSize(1)
+                .maxAnalyzedChars(16)
+                .resultCacheSize(16)
+                .build();
+        var degraded = bySize.extractKeywords(input);
+        assertThat(degraded.isDegraded()).isTrue();
+        assertThat(degraded.getNouns()).contains("법무팀", "불복조서", "담당자").doesNotContain("010", "2024");
+        assertThat(bySize.loadedAnalyzers()).isZero();
+        assertThat(bySize.cacheStats().getSize()).isZero();
+
+        TextFeatureExtractor extractor = TextFeatureExtractor.builder().poolSize(1).build();
+        var full = extractor.extractKeywords(input);
+        assertThat(full.isDegraded()).isFalse();
+        assertThat(degraded.getRegex()).isEqualTo(full.getRegex());
+        assertThat(bySize.extractKeywords("짧은 문장").isDegraded()).isFalse();
+
+        TextFeatureExtractor byTime = TextFeatureExtractor.builder()
+                .poolSize(1)
+                .analyzeBudget(Duration.ofNanos(1))
+                .build();
+        assertThat(byTime.extractKeywordsCompact(input).isDegraded()).isTrue();
+        long[] degradedRange = new long[2];
+        byTime.extractKeywords(input, new KeywordSink() {
+            @Override
+            public void noun(String noun, long start, long end) {
+            }
+
+            @Override
+            public void regexMatch(RegexExtractorKey key, String value, long start, long end) {
+            }
+
+            @Override
+            public void degraded(long start, long end) {
+                degradedRange[0] = start;
+                degradedRange[1] = end;
+            }
+        });
+        assertThat(degradedRange).containsExactly(0, input.length());
+    }
+
+    @Test
+    public void testDictionaryOverlaysShareThePool() {
+        Map<String, List<String>> glossaries = Map.of(
+                "acme", List.of("하이퍼그로스플랜", "퍼그로"),
+                "globex", List.of("예산"));
+        DictionaryOverlayLoader loader = name -> {
+            List<String> words = glossaries.get(name);
+            if (words == null) throw new IllegalArgumentException("unknown tenant: " + name);
+            return words;
+        };
+        String input = "우리 팀은 하이퍼그로스플랜을 준비 중입니다.";
+        ExtractionOptions acme = ExtractionOptions.builder().dictionaryOverlay("acme").build();
+        ExtractionOptions globex = ExtractionOptions.builder().dictionaryOverlay("globex").build();
+
+        TextFeatureExtractor extractor = TextFeatureExtractor.builder().poolSize(1).dictionaryOverlays(loader).build();
+        assertThat(extractor.extractKeywords(input, acme).getNouns()).contains("하이퍼그로스플랜", "퍼그로");
+        assertThat(extractor.extractKeywords(input, globex).getNouns()).doesNotContain("퍼그로");
+        assertThat(extractor.extractKeywords(input).getNouns()).doesNotContain("퍼그로");
+        assertThat(extractor.extractKeywords(input, acme).getNouns()).contains("하이퍼그로스플랜", "퍼그로");
+        assertThat(extractor.loadedAnalyzers()).isEqualTo(1);
+        assertThat(extractor.dictionaryOverlayStats().getLoaded()).isEqualTo(2);
+        assertThat(extractor.dictionaryOverlayStats().getEstimatedBytes()).isPositive();
+        assertThatThrownBy(() -> extractor.extractKeywords(input, ExtractionOptions.builder().dictionaryOverlay("initech").build()))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        TextFeatureExtractor tight = TextFeatureExtractor.builder()
+                .poolSize(1)
+                .dictionaryOverlays(loader)
+                .dictionaryOverlayBudgetBytes(0)
+                .build();
+        assertThat(tight.extractKeywords(input, acme).getNouns()).contains("퍼그로");
+        assertThat(tight.extractKeywords(input, acme).getNouns()).contains("퍼그로");
+        assertThat(tight.dictionaryOverlayStats().getLoaded()).isZero();
+        assertThat(tight.dictionaryOverlayStats().getLoads()).isEqualTo(2L);
+        assertThat(tight.dictionaryOverlayStats().getEvictions()).isEqualTo(2L);
+
+        assertThatThrownBy(() -> TextFeatureExtractor.builder().poolSize(1).build().extractKeywords(input, acme))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void testInterleavedOverlaysKeepTheirAnalyzers() {
+        Map<String, List<String>> glossaries = Map.of(
+                "acme", List.of("하이퍼그로스플랜", "퍼그로"),
+                "globex", List.of("예산"));
+        String input = "우리 팀은 하이퍼그로스플랜을 준비 중입니다.";
+        ExtractionOptions acme = ExtractionOptions.builder().dictionaryOverlay("acme").build();
+        ExtractionOptions globex = ExtractionOptions.builder().dictionaryOverlay("globex").build();
+        TextFeatureExtractor extractor = TextFeatureExtractor.builder()
+                .poolSize(2)
+                .dictionaryOverlays(glossaries::get)
+                .dictionaryOverlayIdleTimeout(Duration.ZERO)
+                .build();
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(extractor.extractKeywords(input, acme).getNouns()).contains("퍼그로");
+            assertThat(extractor.extractKeywords(input, globex).getNouns()).doesNotContain("퍼그로");
+        }
+        // one load per tenant; alternating on a single analyzer would reload on every call
+        assertThat(extractor.dictionaryLoads()).isEqualTo(2L);
+        assertThat(extractor.loadedAnalyzers()).isEqualTo(2);
+
+        long bothLoaded = extractor.dictionaryOverlayStats().getEstimatedBytes();
+        extractor.invalidateDictionaryOverlay("globex");
+        // the evicted overlay is unloaded from its analyzer, and no longer counted
+        assertThat(extractor.dictionaryLoads()).isEqualTo(3L);
+        assertThat(extractor.dictionaryOverlayStats().getEstimatedBytes()).isPositive().isLessThan(bothLoaded);
+        assertThat(extractor.extractKeywords(input, acme).getNouns()).contains("퍼그로");
+        assertThat(extractor.dictionaryLoads()).isEqualTo(3L);
+    }
+
+    private static KeywordSink collectingSink(String text, List<String> regex, List<String> nouns) {
+        return new KeywordSink() {
+            @Override
+            public void noun(String noun, long start, long end) {
+                if (start >= 0) {
+                    assertThat(text.substring((int) start, (int) end)).isEqualTo(noun);
+                }
+                nouns.add(noun);
+            }
+
+            @Override
+            public void regexMatch(RegexExtractorKey key, String value, long start, long end) {
+                assertThat(text.substring((int) start, (int) end)).isEqualTo(value);
+                regex.add(value);
+            }
+        };
+    }
+}
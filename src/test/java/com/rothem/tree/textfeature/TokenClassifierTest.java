@@ -0,0 +1,164 @@
+package com.rothem.tree.textfeature;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TokenClassifierTest {
+
+    // the regex rules TokenClassifier replaced, kept here as the reference
+    private static final Pattern KOREAN_JOSA_SUFFIX =
+            Pattern.compile("(.+?)(?:은|는|이|가|을|를|의|에|에서|에게|한테|으로|로|과|와|도|만|까지|부터)$");
+    private static final Pattern FILENAME_EXTENSION = Pattern.compile("\\.[A-Za-z0-9]{2,6}(\\s|$)");
+    private static final Pattern SCRIPT_BLOCK = Pattern.compile("[가-힣]+|[a-zA-Z]+|[0-9]+");
+
+    private static final String[] ALPHABETS = {
+            "aAzZ09.-'_ \t\n\r\u000B\f가힣에서로으는이,!“”‘’ᄀㄱ\u0301\u3000\u00A0#xTtIi\u0085한테까지부터학교",
+            "학교에서으로는이가을를의와도만까지부터한테게 .,“”",
+            "abcXYZ019_-.[](){}<>~!@#$%^&*+=|;:'\",?/` 가나",
+            "abTHEdon'tisI'm- .0123",
+            "pptxdocPDF.0123456789 \n\r\u0085\u2028가"};
+    private static final String[] TAGS = {"NNG", "NNP", "NP", "NR", "SH", "SL", "NA", "JKS", "SN", "nng", "", "NNGX"};
+
+    @Test
+    public void testNormalizeTokenStripsPunctuationAndJosa() {
+        assertThat(TokenClassifier.normalizeToken("“학교에서”")).isEqualTo("학교");
+        assertThat(TokenClassifier.normalizeToken("학교로")).isEqualTo("학교");
+        assertThat(TokenClassifier.normalizeToken("나에서")).isEqualTo("나에서");
+        assertThat(TokenClassifier.normalizeToken("으로")).isEqualTo("으로");
+        assertThat(TokenClassifier.normalizeToken("...RM팀,")).isEqualTo("RM팀");
+        assertThat(TokenClassifier.normalizeToken("kim's.")).isEqualTo("kim's");
+        assertThat(TokenClassifier.normalizeToken(null)).isEqualTo("");
+    }
+
+    @Test
+    public void testNormalizeTokenComposesDecomposedHangul() {
+        String decomposed = "\u1112\u1161\u11AB\u1100\u1173\u11AF"; // 한글 as conjoining jamo
+        assertThat(TokenClassifier.normalizeToken(decomposed)).isEqualTo("한글");
+    }
+
+    @Test
+    public void testMeaningfulWord() {
+        assertThat(TokenClassifier.isMeaningfulWord("12")).isFalse();
+        assertThat(TokenClassifier.isMeaningfulWord("1")).isTrue();
+        assertThat(TokenClassifier.isMeaningfulWord("The")).isFalse();
+        assertThat(TokenClassifier.isMeaningfulWord("don't")).isFalse();
+        assertThat(TokenClassifier.isMeaningfulWord("KoGPT")).isTrue();
+        assertThat(TokenClassifier.isMeaningfulFilenameToken("팀")).isFalse();
+        assertThat(TokenClassifier.isMeaningfulFilenameToken("200622")).isTrue();
+    }
+
+    @Test
+    public void testLooksLikeFilename() {
+        assertThat(TokenClassifier.looksLikeFilename("주요 현안 법무RM팀 v2.pptx")).isTrue();
+        assertThat(TokenClassifier.looksLikeFilename("a.txt 외 2건")).isTrue();
+        assertThat(TokenClassifier.looksLikeFilename("미래보고서_991231.pptx이고")).isFalse();
+        assertThat(TokenClassifier.looksLikeFilename("버전 1.2 배포")).isFalse();
+        assertThat(TokenClassifier.looksLikeFilename("archive.tar.gzipped")).isFalse();
+    }
+
+    @Test
+    public void testSplitFilenameAddsScriptBlocksOfMixedTokens() {
+        assertThat(TokenClassifier.splitFilenameToTokens("200622_주요 현안_법무RM팀-v2.pptx"))
+                .containsExactly("200622", "주요", "현안", "법무RM팀", "법무", "RM", "팀", "v2", "pptx");
+    }
+
+    @Test
+    public void testMatchesReferenceRegexRules() {
+        Random random = new Random(7);
+        List<String> texts = new ArrayList<>(List.of(
+                "학교에서", "나에서", "으로", "학교에게서", "가가", "가가가", "까지로", "a.txt\r\n", "a.txt\n\n",
+                "a.txt\u0085", "a.pptx이고", "x.ab.cd", "a.abcdefg ", "a.abcdef", "200622_주요 현안_법무RM팀-v2.pptx", ""));
+        texts.add("\uD83D\uDE00한글.txt");
+        for (int i = 0; i < 40000; i++) {
+            String alphabet = ALPHABETS[random.nextInt(ALPHABETS.length)];
+            StringBuilder sb = new StringBuilder();
+            for (int j = random.nextInt(16); j > 0; j--) {
+                sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            texts.add(sb.toString());
+        }
+
+        for (String text : texts) {
+            assertThat(TokenClassifier.normalizeToken(text)).as("normalizeToken [%s]", text)
+                    .isEqualTo(referenceNormalizeToken(text));
+            assertThat(TokenClassifier.isMeaningfulWord(text)).as("isMeaningfulWord [%s]", text)
+                    .isEqualTo(referenceIsMeaningfulWord(text));
+            assertThat(TokenClassifier.isMeaningfulFilenameToken(text)).as("isMeaningfulFilenameToken [%s]", text)
+                    .isEqualTo(referenceIsMeaningfulFilenameToken(text));
+            assertThat(TokenClassifier.looksLikeFilename(text)).as("looksLikeFilename [%s]", text)
+                    .isEqualTo(FILENAME_EXTENSION.matcher(text).find());
+            assertThat(TokenClassifier.splitFilenameToTokens(text)).as("splitFilenameToTokens [%s]", text)
+                    .isEqualTo(referenceSplitFilenameToTokens(text));
+        }
+        for (String tag : TAGS) {
+            assertThat(TokenClassifier.isValidNounTag(tag)).as(tag)
+                    .isEqualTo(Set.of("NNG", "NNP", "NP", "NR", "SH", "SL", "NA").contains(tag));
+        }
+    }
+
+    private static String referenceNormalizeToken(String word) {
+        String cleaned = Normalizer.normalize(word, Normalizer.Form.NFC)
+                .replaceAll("^[\\p{Punct}“”‘’]+", "")
+                .replaceAll("[\\p{Punct}“”‘’]+$", "");
+        if (cleaned.matches("^[가-힣]{2,}$")) {
+            Matcher m = KOREAN_JOSA_SUFFIX.matcher(cleaned);
+            if (m.matches() && m.group(1).length() >= 2) {
+                cleaned = m.group(1);
+            }
+        }
+        return cleaned.trim();
+    }
+
+    private static boolean referenceIsMeaningfulWord(String word) {
+        if (word.matches("\\d{2,}")) return false;
+        if (word.matches("[a-zA-Z'\\-\\.]+")) {
+            return !TokenClassifier.EN_STOPWORDS.contains(word.toLowerCase());
+        }
+        return true;
+    }
+
+    private static boolean referenceIsMeaningfulFilenameToken(String word) {
+        if (word.isEmpty()) return false;
+        if (word.matches("[가-힣]")) return false;
+        if (word.matches("\\d{2,}")) return true;
+        return referenceIsMeaningfulWord(word);
+    }
+
+    private static List<String> referenceSplitFilenameToTokens(String filename) {
+        Set<String> result = new LinkedHashSet<>();
+        String cleaned = Normalizer.normalize(filename, Normalizer.Form.NFC)
+                .replaceAll("[_\\-\\[\\]\\{\\}\\(\\)<>~!@#$%^&*+=|;:'\",.?/`]", " ")
+                .replaceAll("[“”‘’]", " ")
+                .replaceAll("[^\\w\\uAC00-\\uD7A3\\u1100-\\u11FF\\u3130-\\u318F\\s]", " ")
+                .replaceAll("\\s+", " ")
+                .trim();
+        for (String token : cleaned.split("\\s+")) {
+            if (token.isEmpty()) continue;
+            result.add(token);
+            Matcher m = SCRIPT_BLOCK.matcher(token);
+            List<String> subTokens = new ArrayList<>();
+            int hangul = 0, latin = 0, digit = 0;
+            while (m.find()) {
+                String sub = m.group();
+                if (sub.matches("[가-힣]+")) hangul++;
+                else if (sub.matches("[a-zA-Z]+")) latin++;
+                else digit++;
+                subTokens.add(sub);
+            }
+            if (subTokens.size() > 1 && hangul > 0 && (latin > 0 || digit > 0)) {
+                result.addAll(subTokens);
+            }
+        }
+        return new ArrayList<>(result);
+    }
+}